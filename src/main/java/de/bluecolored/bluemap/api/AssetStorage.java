@@ -30,7 +30,19 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * A storage that is able to hold any "asset"-data for a map. For example images, icons, scripts or json-files.
@@ -75,6 +87,68 @@ public interface AssetStorage {
      */
     Optional<InputStream> readAsset(String name) throws IOException;
 
+    /**
+     * Writes a new asset into this storage, overwriting any existent assets with the same name.<br>
+     * All remaining bytes of the given {@link ByteBuffer} are written, and its position is advanced to its limit.
+     * @param name The (unique) name for this asset
+     * @param data The asset-data
+     * @throws IOException when the underlying storage rises an IOException
+     * @see #writeAsset(String)
+     */
+    default void writeAsset(String name, ByteBuffer data) throws IOException {
+        try (OutputStream out = writeAsset(name)) {
+            if (data.hasArray()) {
+                out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+                data.position(data.limit());
+            } else {
+                WritableByteChannel channel = Channels.newChannel(out);
+                while (data.hasRemaining()) channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Writes a new asset into this storage, overwriting any existent assets with the same name.<br>
+     * The asset-data is transferred from the given {@link ReadableByteChannel} until it reaches its end.
+     * The channel will not be closed.
+     * @param name The (unique) name for this asset
+     * @param source The channel to read the asset-data from
+     * @return The number of bytes that have been written
+     * @throws IOException when the underlying storage or the source-channel rises an IOException
+     * @see #writeAsset(String)
+     */
+    default long writeAsset(String name, ReadableByteChannel source) throws IOException {
+        long written = 0;
+        try (OutputStream out = writeAsset(name)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            int read;
+            while ((read = source.read(buffer)) >= 0) {
+                out.write(buffer.array(), 0, read);
+                written += read;
+                buffer.clear();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Reads an asset from this storage into a read-only {@link ByteBuffer}.<br>
+     * Storages that keep their assets in local files might return a memory-mapped buffer, so the asset-data
+     * is not copied onto the heap.
+     * @param name The name of the asset that should be read from the storage.
+     * @return An {@link Optional} with a read-only {@link ByteBuffer} containing the asset-data when the asset is found.
+     * Or an empty optional if there is no asset with this name.
+     * @throws IOException when the underlying storage rises an IOException
+     * @see #readAsset(String)
+     */
+    default Optional<ByteBuffer> readAssetBuffer(String name) throws IOException {
+        Optional<InputStream> optIn = readAsset(name);
+        if (optIn.isEmpty()) return Optional.empty();
+        try (InputStream in = optIn.get()) {
+            return Optional.of(ByteBuffer.wrap(in.readAllBytes()).asReadOnlyBuffer());
+        }
+    }
+
     /**
      * Checks if an asset exists in this storage without reading it.<br>
      * This is useful if the asset has a lot of data and using {@link #readAsset(String)}
@@ -103,4 +177,183 @@ public interface AssetStorage {
      */
     void deleteAsset(String name) throws IOException;
 
+    /**
+     * Lists the names of all assets in this storage that start with the given prefix.<br>
+     * The returned {@link Stream} might be lazily populated from the underlying storage, and should be closed
+     * once it is no longer needed.<br>
+     * <br>
+     * Example:
+     * <pre>
+     * try (Stream&lt;String&gt; names = assetStorage.listAssets("icons/")) {
+     *     names.forEach(name -&gt; ...);
+     * }
+     * </pre>
+     * @param prefix The prefix that the asset-names need to start with, use an empty string to list all assets
+     * @return A {@link Stream} with the names of the matching assets
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    Stream<String> listAssets(String prefix) throws IOException;
+
+    /**
+     * Checks which of the given assets exist in this storage without reading them.<br>
+     * Storages might check all assets at once, e.g. with a single query.
+     * @param names The names of the assets to check for
+     * @return A {@link Set} with the names of all given assets that have been found
+     * @throws IOException when the underlying storage rises an IOException
+     * @see #assetExists(String)
+     */
+    default Set<String> assetsExist(Collection<String> names) throws IOException {
+        Set<String> existing = new HashSet<>();
+        for (String name : names) {
+            if (assetExists(name)) existing.add(name);
+        }
+        return existing;
+    }
+
+    /**
+     * Writes multiple new assets into this storage, overwriting any existent assets with the same names.
+     * @param assets A {@link Map} with the asset-names as keys and the asset-data as values
+     * @throws IOException when the underlying storage rises an IOException
+     * @see #commitAssets(Map, Collection)
+     */
+    default void writeAssets(Map<String, byte[]> assets) throws IOException {
+        commitAssets(assets, Set.of());
+    }
+
+    /**
+     * Deletes multiple assets from this storage. Assets that don't exist are ignored.
+     * @param names The names of the assets that should be deleted
+     * @throws IOException when the underlying storage rises an IOException
+     * @see #commitAssets(Map, Collection)
+     */
+    default void deleteAssets(Collection<String> names) throws IOException {
+        commitAssets(Map.of(), names);
+    }
+
+    /**
+     * Writes and deletes multiple assets at once.<br>
+     * The deletions are applied before the writes, so an asset that is contained in both will be written.
+     * <p>If {@link #supportsAtomicCommits()} returns true, either all or none of the changes are applied.
+     * Otherwise (this is the default implementation) the changes are applied one after another, and some of them
+     * might already be applied if an {@link IOException} is thrown.</p>
+     * @param writes A {@link Map} with the names of the assets to write as keys and the asset-data as values
+     * @param deletes The names of the assets that should be deleted
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    default void commitAssets(Map<String, byte[]> writes, Collection<String> deletes) throws IOException {
+        for (String name : deletes) {
+            deleteAsset(name);
+        }
+        for (Map.Entry<String, byte[]> asset : writes.entrySet()) {
+            try (OutputStream out = writeAsset(asset.getKey())) {
+                out.write(asset.getValue());
+            }
+        }
+    }
+
+    /**
+     * Checks if this storage applies {@link #commitAssets(Map, Collection)} atomically.
+     * @return true if either all or none of the changes of a commit are applied
+     */
+    default boolean supportsAtomicCommits() {
+        return false;
+    }
+
+    /**
+     * Asynchronously writes a new asset into this storage, overwriting any existent assets with the same name.<br>
+     * <br>
+     * Example:
+     * <pre>
+     * assetStorage.writeAssetAsync("image.png", data, executor)
+     *         .exceptionally(ex -&gt; { logger.warn("Failed to write asset", ex); return null; });
+     * </pre>
+     * <p>The default implementation runs {@link #writeAsset(String)} on the given executor. Storages that support
+     * non-blocking I/O might complete the future without using the executor.</p>
+     * @param name The (unique) name for this asset
+     * @param data The asset-data
+     * @param executor The executor that is used to run the blocking I/O
+     * @return A {@link CompletableFuture} that completes once the asset has been written, or completes exceptionally
+     * with the {@link IOException} that the underlying storage raised
+     * @see #writeAsset(String)
+     */
+    default CompletableFuture<Void> writeAssetAsync(String name, byte[] data, Executor executor) {
+        return async(() -> {
+            try (OutputStream out = writeAsset(name)) {
+                out.write(data);
+            }
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Asynchronously reads an asset from this storage.<br>
+     * <p>The default implementation runs {@link #readAsset(String)} on the given executor and reads all data
+     * from the stream. Storages that support non-blocking I/O might complete the future without using the executor.</p>
+     * @param name The name of the asset that should be read from the storage.
+     * @param executor The executor that is used to run the blocking I/O
+     * @return A {@link CompletableFuture} that completes with an {@link Optional} containing the asset-data,
+     * or an empty optional if there is no asset with this name. Or completes exceptionally with the
+     * {@link IOException} that the underlying storage raised
+     * @see #readAsset(String)
+     */
+    default CompletableFuture<Optional<byte[]>> readAssetAsync(String name, Executor executor) {
+        return async(() -> {
+            Optional<InputStream> optIn = readAsset(name);
+            if (optIn.isEmpty()) return Optional.empty();
+            try (InputStream in = optIn.get()) {
+                return Optional.of(in.readAllBytes());
+            }
+        }, executor);
+    }
+
+    /**
+     * Asynchronously checks if an asset exists in this storage without reading it.<br>
+     * <p>The default implementation runs {@link #assetExists(String)} on the given executor. Storages that support
+     * non-blocking I/O might complete the future without using the executor.</p>
+     * @param name The name of the asset to check for
+     * @param executor The executor that is used to run the blocking I/O
+     * @return A {@link CompletableFuture} that completes with <code>true</code> if the asset is found,
+     * <code>false</code> if not. Or completes exceptionally with the {@link IOException} that the underlying storage raised
+     * @see #assetExists(String)
+     */
+    default CompletableFuture<Boolean> assetExistsAsync(String name, Executor executor) {
+        return async(() -> assetExists(name), executor);
+    }
+
+    /**
+     * Asynchronously deletes the asset with the given name from this storage, if it exists.<br>
+     * <p>The default implementation runs {@link #deleteAsset(String)} on the given executor. Storages that support
+     * non-blocking I/O might complete the future without using the executor.</p>
+     * @param name The name of the asset that should be deleted
+     * @param executor The executor that is used to run the blocking I/O
+     * @return A {@link CompletableFuture} that completes once the asset has been deleted, or completes exceptionally
+     * with the {@link IOException} that the underlying storage raised
+     * @see #deleteAsset(String)
+     */
+    default CompletableFuture<Void> deleteAssetAsync(String name, Executor executor) {
+        return async(() -> {
+            deleteAsset(name);
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Runs the task on the executor, completing the returned future with its result or the exception it threw.
+     */
+    private static <T> CompletableFuture<T> async(Callable<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
 }
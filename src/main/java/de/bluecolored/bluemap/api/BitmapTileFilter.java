@@ -0,0 +1,81 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import java.util.BitSet;
+
+/**
+ * A {@link TileFilter} including all tiles that are set in a bitmap.
+ */
+class BitmapTileFilter implements TileFilter {
+
+    private final int minX, minZ, width, height;
+    private final BitSet bitmap;
+
+    BitmapTileFilter(int minX, int minZ, int width, int height, BitSet bitmap) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("width and height must not be negative!");
+        this.minX = minX;
+        this.minZ = minZ;
+        this.width = width;
+        this.height = height;
+        this.bitmap = (BitSet) bitmap.clone();
+    }
+
+    @Override
+    public boolean test(int tileX, int tileZ) {
+        long x = (long) tileX - minX, z = (long) tileZ - minZ;
+        if (x < 0 || x >= width || z < 0 || z >= height) return false;
+        return bitmap.get((int) (z * width + x));
+    }
+
+    @Override
+    public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        long fromX = Math.max((long) minTileX - minX, 0), toX = Math.min((long) maxTileX - minX, width - 1);
+        long fromZ = Math.max((long) minTileZ - minZ, 0), toZ = Math.min((long) maxTileZ - minZ, height - 1);
+
+        for (long z = fromZ; z <= toZ && fromX <= toX; z++) {
+            int rowStart = (int) (z * width);
+            int next = bitmap.nextSetBit(rowStart + (int) fromX);
+            if (next >= 0 && next <= rowStart + toX) return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        if ((long) minTileX < minX || (long) maxTileX >= (long) minX + width) return false;
+        if ((long) minTileZ < minZ || (long) maxTileZ >= (long) minZ + height) return false;
+
+        for (int z = minTileZ - minZ; z <= maxTileZ - minZ; z++) {
+            int rowStart = z * width;
+            int next = bitmap.nextClearBit(rowStart + minTileX - minX);
+            if (next <= rowStart + maxTileX - minX) return false;
+        }
+
+        return true;
+    }
+
+}
@@ -30,6 +30,7 @@
 import de.bluecolored.bluemap.api.markers.MarkerSet;
 import org.jetbrains.annotations.ApiStatus;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.function.Predicate;
 
@@ -73,6 +74,47 @@ public interface BlueMapMap {
      */
     Map<String, MarkerSet> getMarkerSets();
 
+    /**
+     * Getter for this map's {@link DirtyRegionTracker}.<br>
+     * Regions that are marked as dirty here will be updated when {@link #flushDirtyRegions(RenderManager)} is called.
+     * @return the {@link DirtyRegionTracker} of this map
+     */
+    DirtyRegionTracker getDirtyRegionTracker();
+
+    /**
+     * Marks the region containing the given block as changed, so it will be updated on the next
+     * {@link #flushDirtyRegions(RenderManager)}.
+     * @param block the position of the changed block
+     * @see #getDirtyRegionTracker()
+     */
+    default void markDirty(Vector3i block) {
+        getDirtyRegionTracker().markBlock(block);
+    }
+
+    /**
+     * Marks all regions intersecting the given block-area as changed, so they will be updated on the next
+     * {@link #flushDirtyRegions(RenderManager)}.
+     * @param min the min-corner of the changed area
+     * @param max the max-corner of the changed area
+     * @see #getDirtyRegionTracker()
+     */
+    default void markDirty(Vector3i min, Vector3i max) {
+        getDirtyRegionTracker().markBlocks(min, max);
+    }
+
+    /**
+     * Schedules an update-task for all regions of this map that have been marked as dirty, and un-marks them.
+     * @param renderManager the {@link RenderManager} to schedule the update with
+     * @return true if a new task has been scheduled, false if not (because there were no dirty regions,
+     * or because there already is an update-task for those regions scheduled)
+     * @see RenderManager#scheduleMapUpdateTask(BlueMapMap, Collection, boolean)
+     */
+    default boolean flushDirtyRegions(RenderManager renderManager) {
+        Collection<Vector2i> regions = getDirtyRegionTracker().drain();
+        if (regions.isEmpty()) return false;
+        return renderManager.scheduleMapUpdateTask(this, regions, false);
+    }
+
     /**
      * Getter for the size of all tiles on this map in blocks.
      * @return the tile-size in blocks
@@ -91,6 +133,9 @@ public interface BlueMapMap {
      * If this filter returns false for a tile, the "render"-process of this tile will be cancelled and the tile will be left untouched.</p>
      * <p><b>Warning:</b> Using this method will harm the integrity of the map! Since BlueMap will still assume that the tile got updated properly.</p>
      * <p>Any previously set filters will get overwritten with the new one. You can get the current filter using {@link #getTileFilter()} and combine them if you wish.</p>
+     * <p>If the filter is a {@link TileFilter}, it can be tested without creating a {@link Vector2i} for each tile and whole
+     * regions that are excluded by it can be skipped at once. See {@link TileFilter#rectangle(Vector2i, Vector2i)},
+     * {@link TileFilter#shape(de.bluecolored.bluemap.api.math.Shape)} and {@link TileFilter#bitmap(int, int, int, int, java.util.BitSet)}.</p>
      * @param filter The filter that will be used from now on.
      */
     @ApiStatus.Experimental
@@ -115,6 +160,22 @@ public interface BlueMapMap {
     @ApiStatus.Experimental
     Predicate<Vector2i> getTileFilter();
 
+    /**
+     * Checks if all (hires) tiles of the given region are excluded by the current tile-filter,
+     * meaning the whole region can be skipped when rendering.<br>
+     * ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+     * @param regionX the x-coordinate of the region
+     * @param regionZ the z-coordinate of the region
+     * @return true if the current tile-filter is a {@link TileFilter} that excludes all tiles of the region
+     * @see TileFilter#excludesAll(int, int, int, int)
+     */
+    @ApiStatus.Experimental
+    default boolean isRegionExcluded(int regionX, int regionZ) {
+        Vector2i min = posToTile(regionX << 9, regionZ << 9);
+        Vector2i max = posToTile((regionX << 9) + 511, (regionZ << 9) + 511);
+        return TileFilter.of(getTileFilter()).excludesAll(min.getX(), min.getY(), max.getX(), max.getY());
+    }
+
     /**
      * Converts a block-position to a map-tile-coordinate for this map
      *
@@ -152,4 +213,137 @@ default Vector2i posToTile(Vector3d pos){
         return posToTile(pos.getX(), pos.getZ());
     }
 
+    /**
+     * Converts many block-positions to map-tile-coordinates for this map at once.<br>
+     * The tile-coordinates of the block at <code>(blockX[i]|blockZ[i])</code> will be written to
+     * <code>tileX[i]</code> and <code>tileZ[i]</code>.
+     *
+     * @param blockX the x-positions of the blocks
+     * @param blockZ the z-positions of the blocks
+     * @param tileX the array that the x-coordinates of the tiles will be written to
+     * @param tileZ the array that the z-coordinates of the tiles will be written to
+     * @throws IllegalArgumentException if the arrays don't all have the same length
+     */
+    default void posToTile(double[] blockX, double[] blockZ, int[] tileX, int[] tileZ) {
+        int count = blockX.length;
+        if (blockZ.length != count || tileX.length != count || tileZ.length != count)
+            throw new IllegalArgumentException("All arrays need to have the same length!");
+
+        Vector2i offset = getTileOffset();
+        Vector2i size = getTileSize();
+        double offsetX = offset.getX(), offsetZ = offset.getY();
+        double sizeX = size.getX(), sizeZ = size.getY();
+
+        for (int i = 0; i < count; i++) {
+            tileX[i] = (int) Math.floor((blockX[i] - offsetX) / sizeX);
+            tileZ[i] = (int) Math.floor((blockZ[i] - offsetZ) / sizeZ);
+        }
+    }
+
+    /**
+     * Converts many block-positions to map-tile-coordinates for this map at once.<br>
+     * The tile-coordinates of the block at <code>(blockX[i]|blockZ[i])</code> will be written to
+     * <code>tileX[i]</code> and <code>tileZ[i]</code>.
+     *
+     * @param blockX the x-positions of the blocks
+     * @param blockZ the z-positions of the blocks
+     * @param tileX the array that the x-coordinates of the tiles will be written to
+     * @param tileZ the array that the z-coordinates of the tiles will be written to
+     * @throws IllegalArgumentException if the arrays don't all have the same length
+     */
+    default void posToTile(int[] blockX, int[] blockZ, int[] tileX, int[] tileZ) {
+        int count = blockX.length;
+        if (blockZ.length != count || tileX.length != count || tileZ.length != count)
+            throw new IllegalArgumentException("All arrays need to have the same length!");
+
+        Vector2i offset = getTileOffset();
+        Vector2i size = getTileSize();
+        int offsetX = offset.getX(), offsetZ = offset.getY();
+        int sizeX = size.getX(), sizeZ = size.getY();
+
+        for (int i = 0; i < count; i++) {
+            tileX[i] = Math.floorDiv(blockX[i] - offsetX, sizeX);
+            tileZ[i] = Math.floorDiv(blockZ[i] - offsetZ, sizeZ);
+        }
+    }
+
+    /**
+     * Converts a block-position to a map-tile-coordinate for this map, and returns it packed into a single
+     * <code>long</code> (see {@link #tileKey(int, int)}).
+     *
+     * @param blockX the x-position of the block
+     * @param blockZ the z-position of the block
+     * @return the packed tile position
+     */
+    default long posToTileKey(double blockX, double blockZ) {
+        Vector2i offset = getTileOffset();
+        Vector2i size = getTileSize();
+
+        return tileKey(
+                (int) Math.floor((blockX - offset.getX()) / size.getX()),
+                (int) Math.floor((blockZ - offset.getY()) / size.getY())
+        );
+    }
+
+    /**
+     * Converts many block-positions to map-tile-coordinates for this map at once, and writes them packed into
+     * single <code>long</code>s (see {@link #tileKey(int, int)}) to <code>tileKeys[i]</code>.
+     *
+     * @param blockX the x-positions of the blocks
+     * @param blockZ the z-positions of the blocks
+     * @param tileKeys the array that the packed tile positions will be written to
+     * @throws IllegalArgumentException if the arrays don't all have the same length
+     */
+    default void posToTileKey(double[] blockX, double[] blockZ, long[] tileKeys) {
+        int count = blockX.length;
+        if (blockZ.length != count || tileKeys.length != count)
+            throw new IllegalArgumentException("All arrays need to have the same length!");
+
+        Vector2i offset = getTileOffset();
+        Vector2i size = getTileSize();
+        double offsetX = offset.getX(), offsetZ = offset.getY();
+        double sizeX = size.getX(), sizeZ = size.getY();
+
+        for (int i = 0; i < count; i++) {
+            tileKeys[i] = tileKey(
+                    (int) Math.floor((blockX[i] - offsetX) / sizeX),
+                    (int) Math.floor((blockZ[i] - offsetZ) / sizeZ)
+            );
+        }
+    }
+
+    /**
+     * Packs a tile-coordinate into a single <code>long</code>, with the x-coordinate in the upper and the
+     * z-coordinate in the lower 32 bits.
+     *
+     * @param tileX the x-coordinate of the tile
+     * @param tileZ the z-coordinate of the tile
+     * @return the packed tile position
+     * @see #tileKeyX(long)
+     * @see #tileKeyZ(long)
+     */
+    static long tileKey(int tileX, int tileZ) {
+        return (long) tileX << 32 | tileZ & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Unpacks the x-coordinate of a tile-position that has been packed using {@link #tileKey(int, int)}.
+     *
+     * @param tileKey the packed tile position
+     * @return the x-coordinate of the tile
+     */
+    static int tileKeyX(long tileKey) {
+        return (int) (tileKey >> 32);
+    }
+
+    /**
+     * Unpacks the z-coordinate of a tile-position that has been packed using {@link #tileKey(int, int)}.
+     *
+     * @param tileKey the packed tile position
+     * @return the z-coordinate of the tile
+     */
+    static int tileKeyZ(long tileKey) {
+        return (int) tileKey;
+    }
+
 }
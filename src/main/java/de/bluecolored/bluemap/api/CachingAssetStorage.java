@@ -0,0 +1,473 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An {@link AssetStorage} that keeps recently read assets in memory, in front of another (delegate) storage.
+ * <p>The cache is bounded by the total size of the cached asset-data, and evicts the least recently used
+ * assets first. Assets that are known to not exist are cached as well. Assets that are larger than the max
+ * entry-size are not cached, but streamed from the delegate storage.<br>
+ * Writing or deleting an asset through this storage invalidates its cache-entry.</p>
+ * <p>The delegate storage should not be modified by anything else while this storage is used, since such changes
+ * would not be visible until the cached asset gets evicted.</p>
+ */
+@SuppressWarnings("unused")
+public class CachingAssetStorage implements AssetStorage {
+
+    /**
+     * The estimated memory used by a cache-entry in addition to the asset-data
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final byte[] MISSING = new byte[0];
+
+    private final AssetStorage storage;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    // a token for each asset that is currently being loaded into the cache, removed if the asset gets invalidated
+    private final Map<String, Object> loads = new HashMap<>();
+
+    private long bytes = 0;
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * Creates a new {@link CachingAssetStorage}.<br>
+     * Assets larger than an eighth of the max size are not cached.
+     * @param storage the storage that is used to store the assets
+     * @param maxBytes the maximum amount of bytes that the cached assets are allowed to use, 0 disables the cache
+     */
+    public CachingAssetStorage(AssetStorage storage, long maxBytes) {
+        this(storage, maxBytes, (int) Math.min(maxBytes / 8, Integer.MAX_VALUE - 8));
+    }
+
+    /**
+     * Creates a new {@link CachingAssetStorage}.
+     * @param storage the storage that is used to store the assets
+     * @param maxBytes the maximum amount of bytes that the cached assets are allowed to use, 0 disables the cache
+     * @param maxEntryBytes the maximum size in bytes of a single asset to be cached, larger assets are not cached
+     */
+    public CachingAssetStorage(AssetStorage storage, long maxBytes, int maxEntryBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must not be negative!");
+        if (maxEntryBytes < 0) throw new IllegalArgumentException("maxEntryBytes must not be negative!");
+        this.storage = Objects.requireNonNull(storage, "storage must not be null");
+        this.maxBytes = maxBytes;
+
+        // an asset can not be cached if its entry alone would exceed maxBytes
+        long maxFittingBytes = Math.max(0, maxBytes - ENTRY_OVERHEAD);
+        this.maxEntryBytes = (int) Math.min(maxEntryBytes, Math.min(maxFittingBytes, Integer.MAX_VALUE - 8));
+    }
+
+    @Override
+    public OutputStream writeAsset(String name) throws IOException {
+        invalidate(name);
+        return new FilterOutputStream(storage.writeAsset(name)) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    invalidate(name);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void writeAsset(String name, ByteBuffer data) throws IOException {
+        invalidate(name);
+        try {
+            storage.writeAsset(name, data);
+        } finally {
+            invalidate(name);
+        }
+    }
+
+    @Override
+    public long writeAsset(String name, ReadableByteChannel source) throws IOException {
+        invalidate(name);
+        try {
+            return storage.writeAsset(name, source);
+        } finally {
+            invalidate(name);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> readAsset(String name) throws IOException {
+        Object token;
+        synchronized (this) {
+            byte[] data = cache.get(name);
+            if (data != null) {
+                hits++;
+                return data == MISSING ? Optional.empty() : Optional.of(new ByteArrayInputStream(data));
+            }
+            misses++;
+            token = startLoad(name);
+        }
+
+        Optional<InputStream> optIn = Optional.empty();
+        byte[] data;
+        try {
+            optIn = storage.readAsset(name);
+            if (optIn.isEmpty()) {
+                put(name, MISSING, token);
+                return Optional.empty();
+            }
+            data = optIn.get().readNBytes(maxEntryBytes + 1);
+        } catch (IOException | RuntimeException ex) {
+            endLoad(name, token);
+            if (optIn.isPresent()) optIn.get().close();
+            throw ex;
+        }
+
+        // too large to be cached, continue streaming the rest of the asset
+        if (data.length > maxEntryBytes) {
+            endLoad(name, token);
+            return Optional.of(new SequenceInputStream(new ByteArrayInputStream(data), optIn.get()));
+        }
+
+        optIn.get().close();
+        put(name, data, token);
+        return Optional.of(new ByteArrayInputStream(data));
+    }
+
+    @Override
+    public Optional<ByteBuffer> readAssetBuffer(String name) throws IOException {
+        Object token;
+        synchronized (this) {
+            byte[] data = cache.get(name);
+            if (data != null) {
+                hits++;
+                return data == MISSING ? Optional.empty() : Optional.of(ByteBuffer.wrap(data).asReadOnlyBuffer());
+            }
+            misses++;
+            token = startLoad(name);
+        }
+
+        Optional<ByteBuffer> optBuffer;
+        try {
+            optBuffer = storage.readAssetBuffer(name);
+        } catch (IOException | RuntimeException ex) {
+            endLoad(name, token);
+            throw ex;
+        }
+
+        if (optBuffer.isEmpty()) {
+            put(name, MISSING, token);
+            return optBuffer;
+        }
+
+        // too large to be cached, pass on the buffer of the delegate storage (e.g. a memory-mapped file)
+        ByteBuffer buffer = optBuffer.get();
+        if (buffer.remaining() > maxEntryBytes) {
+            endLoad(name, token);
+            return optBuffer;
+        }
+
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        put(name, data, token);
+        return Optional.of(ByteBuffer.wrap(data).asReadOnlyBuffer());
+    }
+
+    @Override
+    public boolean assetExists(String name) throws IOException {
+        Object token;
+        synchronized (this) {
+            byte[] data = cache.get(name);
+            if (data != null) {
+                hits++;
+                return data != MISSING;
+            }
+            misses++;
+            token = startLoad(name);
+        }
+
+        boolean exists;
+        try {
+            exists = storage.assetExists(name);
+        } catch (IOException | RuntimeException ex) {
+            endLoad(name, token);
+            throw ex;
+        }
+
+        if (exists) endLoad(name, token);
+        else put(name, MISSING, token);
+        return exists;
+    }
+
+    @Override
+    public String getAssetUrl(String name) {
+        return storage.getAssetUrl(name);
+    }
+
+    @Override
+    public void deleteAsset(String name) throws IOException {
+        invalidate(name);
+        try {
+            storage.deleteAsset(name);
+        } finally {
+            invalidate(name);
+        }
+    }
+
+    @Override
+    public Stream<String> listAssets(String prefix) throws IOException {
+        return storage.listAssets(prefix);
+    }
+
+    @Override
+    public Set<String> assetsExist(Collection<String> names) throws IOException {
+        Set<String> existing = new HashSet<>();
+        Map<String, Object> unknown = new HashMap<>();
+        synchronized (this) {
+            for (String name : names) {
+                byte[] data = cache.get(name);
+                if (data == null) {
+                    if (unknown.containsKey(name)) continue;
+                    misses++;
+                    unknown.put(name, startLoad(name));
+                } else {
+                    hits++;
+                    if (data != MISSING) existing.add(name);
+                }
+            }
+        }
+
+        if (unknown.isEmpty()) return existing;
+
+        Set<String> found;
+        try {
+            found = storage.assetsExist(unknown.keySet());
+        } catch (IOException | RuntimeException ex) {
+            unknown.forEach(this::endLoad);
+            throw ex;
+        }
+
+        existing.addAll(found);
+        for (Map.Entry<String, Object> entry : unknown.entrySet()) {
+            if (found.contains(entry.getKey())) endLoad(entry.getKey(), entry.getValue());
+            else put(entry.getKey(), MISSING, entry.getValue());
+        }
+        return existing;
+    }
+
+    @Override
+    public void commitAssets(Map<String, byte[]> writes, Collection<String> deletes) throws IOException {
+        invalidate(writes.keySet(), deletes);
+        try {
+            storage.commitAssets(writes, deletes);
+        } finally {
+            invalidate(writes.keySet(), deletes);
+        }
+    }
+
+    @Override
+    public boolean supportsAtomicCommits() {
+        return storage.supportsAtomicCommits();
+    }
+
+    /**
+     * Removes all assets from the cache.
+     */
+    public synchronized void invalidateAll() {
+        cache.clear();
+        loads.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Getter for the current statistics of this cache.
+     * @return a snapshot of the statistics of this cache
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, cache.size(), bytes, maxBytes);
+    }
+
+    private synchronized void invalidate(String name) {
+        byte[] data = cache.remove(name);
+        if (data != null) bytes -= weight(data);
+        loads.remove(name);
+    }
+
+    private synchronized void invalidate(Collection<String> writes, Collection<String> deletes) {
+        for (String name : writes) invalidate(name);
+        for (String name : deletes) invalidate(name);
+    }
+
+    /**
+     * Registers a new load of the given asset, and returns the token that is needed to put the loaded asset into
+     * the cache.
+     */
+    private synchronized Object startLoad(String name) {
+        Object token = new Object();
+        loads.put(name, token);
+        return token;
+    }
+
+    private synchronized void endLoad(String name, Object token) {
+        loads.remove(name, token);
+    }
+
+    private synchronized void put(String name, byte[] data, Object token) {
+        // the asset might have been changed (or loaded by someone else) while it was read
+        if (!loads.remove(name, token)) return;
+
+        long weight = weight(data);
+        if (weight > maxBytes) return;
+
+        byte[] previous = cache.put(name, data);
+        if (previous != null) bytes -= weight(previous);
+        bytes += weight;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = cache.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= weight(iterator.next().getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static long weight(byte[] data) {
+        return (long) data.length + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * A snapshot of the statistics of a {@link CachingAssetStorage}.
+     */
+    public static class Stats {
+
+        private final long hitCount, missCount, evictionCount;
+        private final int entryCount;
+        private final long size, maxSize;
+
+        private Stats(long hitCount, long missCount, long evictionCount, int entryCount, long size, long maxSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.entryCount = entryCount;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * The number of reads and existence-checks that have been answered from the cache.
+         * @return the hit-count
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * The number of reads and existence-checks that had to be passed to the delegate storage.
+         * @return the miss-count
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * The ratio of hits to all requests, or 0 if there have been no requests yet.
+         * @return the hit-rate between 0 and 1
+         */
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0 : (double) hitCount / requests;
+        }
+
+        /**
+         * The number of assets that have been removed from the cache to make room for other assets.
+         * @return the eviction-count
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * The number of assets that are currently cached (including assets that are cached as not existing).
+         * @return the entry-count
+         */
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * The estimated amount of memory in bytes that is currently used by the cached assets.
+         * @return the size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * The maximum amount of bytes that the cached assets are allowed to use.
+         * @return the max size in bytes
+         */
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", hitRate=" + getHitRate() +
+                    ", evictionCount=" + evictionCount +
+                    ", entryCount=" + entryCount +
+                    ", size=" + size +
+                    ", maxSize=" + maxSize +
+                    '}';
+        }
+
+    }
+
+}
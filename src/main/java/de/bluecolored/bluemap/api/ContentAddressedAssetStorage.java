@@ -0,0 +1,297 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * An {@link AssetStorage} that stores the data of each asset only once per content, in another (delegate) storage.
+ * <p>The asset-data is stored under a name derived from its SHA-256 digest (<code>content/&lt;digest&gt;.&lt;ext&gt;</code>),
+ * and the asset-names are only lightweight aliases pointing to that content (stored as <code>alias/&lt;name&gt;</code>).
+ * Writing data that is already stored only updates the alias.</p>
+ * <p>{@link #getAssetUrl(String)} returns the URL of the content itself. Since that content never changes,
+ * the URL can be cached forever by browsers, and changes as soon as a different asset-data is written.</p>
+ * <p>Deleting an asset only deletes its alias, the content is kept since it might still be used by other aliases.</p>
+ * <p>Assets that already exist in the delegate storage under their plain name (e.g. written before this storage
+ * was used) can still be read, checked and deleted.</p>
+ * <p>The aliases are cached in memory, so the delegate storage should not be modified by anything else
+ * (e.g. a second {@link ContentAddressedAssetStorage} instance) while this storage is used.</p>
+ */
+@SuppressWarnings("unused")
+public class ContentAddressedAssetStorage implements AssetStorage {
+
+    private static final String CONTENT_PREFIX = "content/";
+    private static final String ALIAS_PREFIX = "alias/";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final AssetStorage storage;
+
+    // caches of the aliases and known contents, aliases mapped to "" are known to not exist
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final Set<String> contents = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new {@link ContentAddressedAssetStorage}.
+     * @param storage the storage that is used to store the contents and aliases
+     */
+    public ContentAddressedAssetStorage(AssetStorage storage) {
+        this.storage = Objects.requireNonNull(storage, "storage must not be null");
+    }
+
+    @Override
+    public OutputStream writeAsset(String name) throws IOException {
+        Objects.requireNonNull(name, "name must not be null");
+        return new ByteArrayOutputStream() {
+            private boolean closed = false;
+
+            @Override
+            public synchronized void close() throws IOException {
+                if (closed) return;
+                closed = true;
+                commitAssets(Map.of(name, toByteArray()), Set.of());
+            }
+        };
+    }
+
+    @Override
+    public Optional<InputStream> readAsset(String name) throws IOException {
+        String contentName = resolve(name);
+        if (contentName == null) return storage.readAsset(name);
+        return storage.readAsset(contentName);
+    }
+
+    @Override
+    public Optional<ByteBuffer> readAssetBuffer(String name) throws IOException {
+        String contentName = resolve(name);
+        if (contentName == null) return storage.readAssetBuffer(name);
+        return storage.readAssetBuffer(contentName);
+    }
+
+    /**
+     * Writes a new asset into this storage, overwriting any existent assets with the same name.<br>
+     * The digest is computed directly from the {@link ByteBuffer}, and the buffer is passed on to the delegate
+     * storage without copying it, if the content is not already stored.
+     * @param name The (unique) name for this asset
+     * @param data The asset-data
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    @Override
+    public void writeAsset(String name, ByteBuffer data) throws IOException {
+        Objects.requireNonNull(name, "name must not be null");
+        String contentName = CONTENT_PREFIX + digest(data.duplicate()) + extension(name);
+
+        if (!contents.contains(contentName)) {
+            if (!storage.assetExists(contentName)) storage.writeAsset(contentName, data.duplicate());
+            contents.add(contentName);
+        }
+
+        if (!contentName.equals(aliases.get(name))) {
+            aliases.remove(name);
+            storage.writeAsset(ALIAS_PREFIX + name, ByteBuffer.wrap(contentName.getBytes(StandardCharsets.UTF_8)));
+            aliases.put(name, contentName);
+        }
+
+        data.position(data.limit());
+    }
+
+    @Override
+    public boolean assetExists(String name) throws IOException {
+        return resolve(name) != null || storage.assetExists(name);
+    }
+
+    /**
+     * Returns the URL of the content that the asset with the given name currently points to.
+     * This URL never changes its content and can be cached forever.<br>
+     * If there is no such asset (or resolving it failed), the URL of the plain asset-name in the delegate
+     * storage is returned.
+     * @param name The name of the asset
+     * @return The relative URL for an asset with the given name
+     */
+    @Override
+    public String getAssetUrl(String name) {
+        try {
+            String contentName = resolve(name);
+            if (contentName != null) return storage.getAssetUrl(contentName);
+        } catch (IOException ignore) {}
+        return storage.getAssetUrl(name);
+    }
+
+    @Override
+    public void deleteAsset(String name) throws IOException {
+        commitAssets(Map.of(), Set.of(name));
+    }
+
+    /**
+     * Lists the names of all aliases that start with the given prefix, as well as all plain assets
+     * in the delegate storage (that are not contents or aliases) that start with the given prefix.
+     * @param prefix The prefix that the asset-names need to start with, use an empty string to list all assets
+     * @return A {@link Stream} with the names of the matching assets
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    @Override
+    public Stream<String> listAssets(String prefix) throws IOException {
+        Stream<String> aliased = storage.listAssets(ALIAS_PREFIX + prefix)
+                .map(name -> name.substring(ALIAS_PREFIX.length()));
+
+        Stream<String> plain;
+        try {
+            plain = storage.listAssets(prefix)
+                    .filter(name -> !name.startsWith(ALIAS_PREFIX) && !name.startsWith(CONTENT_PREFIX));
+        } catch (IOException | RuntimeException ex) {
+            aliased.close();
+            throw ex;
+        }
+
+        return Stream.concat(aliased, plain).distinct();
+    }
+
+    /**
+     * Writes and deletes multiple assets at once.<br>
+     * All new contents, aliases and deletions are passed to the delegate storage in a single
+     * {@link AssetStorage#commitAssets(Map, Collection) commit}, so this is atomic if the delegate storage
+     * {@link #supportsAtomicCommits() supports atomic commits}.
+     * @param writes A {@link Map} with the names of the assets to write as keys and the asset-data as values
+     * @param deletes The names of the assets that should be deleted
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    @Override
+    public void commitAssets(Map<String, byte[]> writes, Collection<String> deletes) throws IOException {
+        Set<String> deleted = new HashSet<>(deletes);
+        Set<String> storageDeletes = new HashSet<>();
+        for (String name : deleted) {
+            storageDeletes.add(ALIAS_PREFIX + name);
+            storageDeletes.add(name);
+        }
+
+        Map<String, byte[]> storageWrites = new HashMap<>();
+        Map<String, String> newAliases = new HashMap<>();
+        for (Map.Entry<String, byte[]> asset : writes.entrySet()) {
+            String name = asset.getKey();
+            byte[] data = asset.getValue();
+            String contentName = CONTENT_PREFIX + digest(ByteBuffer.wrap(data)) + extension(name);
+
+            if (!contents.contains(contentName) && !storageWrites.containsKey(contentName)) {
+                if (storage.assetExists(contentName)) contents.add(contentName);
+                else storageWrites.put(contentName, data);
+            }
+
+            if (deleted.contains(name) || !contentName.equals(aliases.get(name)))
+                storageWrites.put(ALIAS_PREFIX + name, contentName.getBytes(StandardCharsets.UTF_8));
+
+            newAliases.put(name, contentName);
+        }
+
+        if (!storageWrites.isEmpty() || !storageDeletes.isEmpty()) {
+            try {
+                storage.commitAssets(storageWrites, storageDeletes);
+            } catch (IOException | RuntimeException ex) {
+                // we don't know which changes have been applied
+                for (String name : deleted) aliases.remove(name);
+                for (String name : newAliases.keySet()) aliases.remove(name);
+                throw ex;
+            }
+        }
+
+        for (String name : deleted) aliases.put(name, "");
+        aliases.putAll(newAliases);
+        for (String name : storageWrites.keySet()) {
+            if (name.startsWith(CONTENT_PREFIX)) contents.add(name);
+        }
+    }
+
+    @Override
+    public boolean supportsAtomicCommits() {
+        return storage.supportsAtomicCommits();
+    }
+
+    /**
+     * Returns the name of the content that the asset with the given name points to in the delegate storage.
+     * @param name The name of the asset
+     * @return An {@link Optional} with the content-name, or an empty optional if there is no alias with this name
+     * @throws IOException when the underlying storage rises an IOException
+     */
+    public Optional<String> getContentName(String name) throws IOException {
+        return Optional.ofNullable(resolve(name));
+    }
+
+    /**
+     * Returns the content-name for the given alias, or null if there is no such alias.
+     */
+    @Nullable
+    private String resolve(String name) throws IOException {
+        String contentName = aliases.get(name);
+        if (contentName == null) {
+            Optional<InputStream> optIn = storage.readAsset(ALIAS_PREFIX + name);
+            if (optIn.isPresent()) {
+                try (InputStream in = optIn.get()) {
+                    contentName = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            } else {
+                contentName = "";
+            }
+            aliases.put(name, contentName);
+        }
+        return contentName.isEmpty() ? null : contentName;
+    }
+
+    private static String digest(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            digest.update(data);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported!", ex);
+        }
+    }
+
+    /**
+     * Returns the file-extension (including the dot) of the given name, so the content keeps its content-type.
+     */
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot < name.lastIndexOf('/')) return "";
+        return name.substring(dot);
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3i;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of the regions of a map that have been changed and need to be updated.<br>
+ * ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+ * <p>The regions are stored in a compact bitset: each entry covers 8x8 regions with one bit per region, so marking
+ * a region does not allocate any objects.</p>
+ * <p>This class is thread-safe.</p>
+ * @see BlueMapMap#getDirtyRegionTracker()
+ */
+@SuppressWarnings("unused")
+public class DirtyRegionTracker {
+
+    private static final int REGION_SHIFT = 9; // 512 blocks per region
+    private static final int CELL_SHIFT = 3; // 8x8 regions per bitmask
+    private static final int CELL_MASK = (1 << CELL_SHIFT) - 1;
+
+    // open-addressing hash-table, a mask of 0 marks an empty slot
+    private long[] keys = new long[16];
+    private long[] masks = new long[16];
+    private int cellCount = 0;
+
+    /**
+     * Marks the region containing the given block as dirty.
+     * @param block the position of the block
+     */
+    public void markBlock(Vector3i block) {
+        markBlock(block.getX(), block.getZ());
+    }
+
+    /**
+     * Marks the region containing the given block as dirty.
+     * @param blockX the x-position of the block
+     * @param blockZ the z-position of the block
+     */
+    public void markBlock(int blockX, int blockZ) {
+        markRegion(blockX >> REGION_SHIFT, blockZ >> REGION_SHIFT);
+    }
+
+    /**
+     * Marks all regions intersecting the given block-area as dirty.
+     * @param min the min-corner of the area
+     * @param max the max-corner of the area
+     */
+    public void markBlocks(Vector3i min, Vector3i max) {
+        markBlocks(min.getX(), min.getZ(), max.getX(), max.getZ());
+    }
+
+    /**
+     * Marks all regions intersecting the given block-area as dirty.
+     * @param minBlockX the min x-position of the area
+     * @param minBlockZ the min z-position of the area
+     * @param maxBlockX the max x-position of the area
+     * @param maxBlockZ the max z-position of the area
+     */
+    public void markBlocks(int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ) {
+        markRegions(
+                Math.min(minBlockX, maxBlockX) >> REGION_SHIFT, Math.min(minBlockZ, maxBlockZ) >> REGION_SHIFT,
+                Math.max(minBlockX, maxBlockX) >> REGION_SHIFT, Math.max(minBlockZ, maxBlockZ) >> REGION_SHIFT
+        );
+    }
+
+    /**
+     * Marks the given region as dirty.
+     * @param regionX the x-coordinate of the region
+     * @param regionZ the z-coordinate of the region
+     */
+    public synchronized void markRegion(int regionX, int regionZ) {
+        mark(cellKey(regionX >> CELL_SHIFT, regionZ >> CELL_SHIFT), bit(regionX, regionZ));
+    }
+
+    /**
+     * Marks all regions in the given (inclusive) area as dirty.
+     * @param minRegionX the min x-coordinate of the regions
+     * @param minRegionZ the min z-coordinate of the regions
+     * @param maxRegionX the max x-coordinate of the regions
+     * @param maxRegionZ the max z-coordinate of the regions
+     */
+    public synchronized void markRegions(int minRegionX, int minRegionZ, int maxRegionX, int maxRegionZ) {
+        for (int x = minRegionX; x <= maxRegionX; x++) {
+            for (int z = minRegionZ; z <= maxRegionZ; z++) {
+                mark(cellKey(x >> CELL_SHIFT, z >> CELL_SHIFT), bit(x, z));
+            }
+        }
+    }
+
+    /**
+     * Checks if the given region is marked as dirty.
+     * @param regionX the x-coordinate of the region
+     * @param regionZ the z-coordinate of the region
+     * @return <code>true</code> if the region is dirty
+     */
+    public synchronized boolean isDirty(int regionX, int regionZ) {
+        int slot = find(cellKey(regionX >> CELL_SHIFT, regionZ >> CELL_SHIFT));
+        return (masks[slot] & bit(regionX, regionZ)) != 0;
+    }
+
+    /**
+     * Checks if there are no dirty regions.
+     * @return <code>true</code> if no region is marked as dirty
+     */
+    public synchronized boolean isEmpty() {
+        return cellCount == 0;
+    }
+
+    /**
+     * Counts the regions that are marked as dirty.
+     * @return the amount of dirty regions
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (long mask : masks) size += Long.bitCount(mask);
+        return size;
+    }
+
+    /**
+     * Returns all regions that are marked as dirty and un-marks them.
+     * @return the regions that have been dirty
+     */
+    public synchronized Collection<Vector2i> drain() {
+        List<Vector2i> regions = new ArrayList<>(size());
+        for (int slot = 0; slot < keys.length; slot++) {
+            long mask = masks[slot];
+            if (mask == 0) continue;
+
+            int cellX = (int) (keys[slot] >> 32), cellZ = (int) keys[slot];
+            while (mask != 0) {
+                int bit = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                regions.add(new Vector2i(
+                        cellX << CELL_SHIFT | bit & CELL_MASK,
+                        cellZ << CELL_SHIFT | bit >> CELL_SHIFT
+                ));
+            }
+        }
+
+        clear();
+        return regions;
+    }
+
+    /**
+     * Un-marks all regions.
+     */
+    public synchronized void clear() {
+        keys = new long[16];
+        masks = new long[16];
+        cellCount = 0;
+    }
+
+    private void mark(long key, long bit) {
+        int slot = find(key);
+        if (masks[slot] == 0) {
+            keys[slot] = key;
+            masks[slot] = bit;
+            if (++cellCount * 4 > keys.length * 3) grow();
+        } else {
+            masks[slot] |= bit;
+        }
+    }
+
+    /**
+     * Returns the slot of the given key, or the empty slot where it would be inserted.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (masks[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys, oldMasks = masks;
+        keys = new long[oldKeys.length * 2];
+        masks = new long[oldMasks.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldMasks[i] == 0) continue;
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            masks[slot] = oldMasks[i];
+        }
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return (long) cellX << 32 | cellZ & 0xFFFFFFFFL;
+    }
+
+    private static long bit(int regionX, int regionZ) {
+        return 1L << ((regionZ & CELL_MASK) << CELL_SHIFT | regionX & CELL_MASK);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+}
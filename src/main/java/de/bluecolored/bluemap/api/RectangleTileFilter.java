@@ -0,0 +1,59 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+/**
+ * A {@link TileFilter} including all tiles within an (inclusive) rectangle.
+ */
+class RectangleTileFilter implements TileFilter {
+
+    static final RectangleTileFilter ALL =
+            new RectangleTileFilter(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int minX, minZ, maxX, maxZ;
+
+    RectangleTileFilter(int minX, int minZ, int maxX, int maxZ) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+    }
+
+    @Override
+    public boolean test(int tileX, int tileZ) {
+        return tileX >= minX && tileX <= maxX && tileZ >= minZ && tileZ <= maxZ;
+    }
+
+    @Override
+    public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        return minTileX > maxX || maxTileX < minX || minTileZ > maxZ || maxTileZ < minZ;
+    }
+
+    @Override
+    public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        return minTileX >= minX && maxTileX <= maxX && minTileZ >= minZ && maxTileZ <= maxZ;
+    }
+
+}
@@ -25,8 +25,15 @@
 package de.bluecolored.bluemap.api;
 
 import com.flowpowered.math.vector.Vector2i;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntUnaryOperator;
 
 /**
  * The {@link RenderManager} is used to schedule tile-renders and process them on a number of different threads.
@@ -34,6 +41,25 @@
 @SuppressWarnings("unused")
 public interface RenderManager {
 
+    /**
+     * Priority for tasks that should only be processed when there is nothing more important to do.
+     * @see RenderTask#getPriority()
+     */
+    int PRIORITY_LOW = -10;
+
+    /**
+     * The default priority for scheduled tasks.
+     * @see RenderTask#getPriority()
+     */
+    int PRIORITY_NORMAL = 0;
+
+    /**
+     * Priority for tasks that should be processed before all normal tasks,
+     * e.g. updates of the regions around online players.
+     * @see RenderTask#getPriority()
+     */
+    int PRIORITY_HIGH = 10;
+
     /**
      * Schedules a task to update the given map.
      * @param map the map to be updated
@@ -49,7 +75,21 @@ default boolean scheduleMapUpdateTask(BlueMapMap map) {
      * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
      * @return true if a new task has been scheduled, false if not (usually because there is already an update-task for this map scheduled)
      */
-    boolean scheduleMapUpdateTask(BlueMapMap map, boolean force);
+    default boolean scheduleMapUpdateTask(BlueMapMap map, boolean force) {
+        return scheduleMapUpdateTask(map, force, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given map.
+     * <p>If there already is an update-task for this map scheduled, its priority is raised to the given priority
+     * if it is lower.</p>
+     * @param map the map to be updated
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @return true if a new task has been scheduled, false if not (usually because there is already an update-task for this map scheduled)
+     * @see #PRIORITY_NORMAL
+     */
+    boolean scheduleMapUpdateTask(BlueMapMap map, boolean force, int priority);
 
     /**
      * Schedules a task to update the given map.
@@ -59,7 +99,41 @@ default boolean scheduleMapUpdateTask(BlueMapMap map) {
      * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
      * @return true if a new task has been scheduled, false if not (usually because there is already an update-task for this map scheduled)
      */
-    boolean scheduleMapUpdateTask(BlueMapMap map, Collection<Vector2i> regions, boolean force);
+    default boolean scheduleMapUpdateTask(BlueMapMap map, Collection<Vector2i> regions, boolean force) {
+        return scheduleMapUpdateTask(map, regions, force, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given regions of the given map.
+     * <p>Regions that are already part of a scheduled update-task with a lower priority are moved to the new task.</p>
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))<br>
+     *                BlueMaps updating-system works based on region-files. For this reason you can always only update a whole region-file at once.
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @return true if a new task has been scheduled, false if not (usually because there is already an update-task for this map scheduled)
+     * @see #PRIORITY_NORMAL
+     */
+    boolean scheduleMapUpdateTask(BlueMapMap map, Collection<Vector2i> regions, boolean force, int priority);
+
+    /**
+     * Requests an update of the given regions of the given map, that is scheduled after a delay.<br>
+     * All regions that are requested for the same map (and with the same force-flag) while the delay is running are
+     * merged into one update-task, and duplicate regions are only rendered once. The delay starts with the first
+     * request and is not extended by later requests, so frequent requests can not postpone the update forever.
+     * <p>This is meant for updates that are triggered very frequently, e.g. on every block-change.</p>
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param delay the time to wait and collect more requests before the update-task is scheduled
+     * @return a {@link CompletableFuture} that completes with the merged {@link RenderTask} once the delay has passed
+     * and the task has been scheduled (all merged requests get the same task). Use {@link RenderTask#getCompletion()}
+     * to wait until the regions have been updated.
+     * @see #setCoalescingWindow(Duration)
+     */
+    CompletableFuture<RenderTask> scheduleMapUpdateTaskDebounced(
+            BlueMapMap map, Collection<Vector2i> regions, boolean force, Duration delay
+    );
 
     /**
      * Schedules a task to purge the given map.
@@ -69,6 +143,171 @@ default boolean scheduleMapUpdateTask(BlueMapMap map) {
      */
     boolean scheduleMapPurgeTask(BlueMapMap map);
 
+    /**
+     * Schedules a task to update the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @return the {@link RenderTask} that will update the map
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map) {
+        return scheduleMapUpdateTaskAsync(map, false);
+    }
+
+    /**
+     * Schedules a task to update the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @return the {@link RenderTask} that will update the map
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, boolean force) {
+        return scheduleMapUpdateTaskAsync(map, force, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @return the {@link RenderTask} that will update the map
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, boolean force, int priority) {
+        return scheduleMapUpdateTaskAsync(map, force, priority, region -> {});
+    }
+
+    /**
+     * Schedules a task to update the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param regionCallback a callback that is called for each region once it has been updated.<br>
+     *                       It is called on a render-thread, so it should return quickly.
+     * @return the {@link RenderTask} that will update the map
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, boolean force, Consumer<Vector2i> regionCallback) {
+        return scheduleMapUpdateTaskAsync(map, force, PRIORITY_NORMAL, regionCallback);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given map and returns a {@link RenderTask}-handle for it.
+     * Use {@link RenderTask#getCompletion()} to wait for the update to be done.
+     * <p>If there is already an update-task for this map scheduled, no new task is scheduled and the handle of the
+     * already scheduled task is returned (with its priority raised to the given priority if it was lower).</p>
+     * @param map the map to be updated
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @param regionCallback a callback that is called for each region once it has been updated.<br>
+     *                       It is called on a render-thread, so it should return quickly.
+     * @return the {@link RenderTask} that will update the map
+     * @see #PRIORITY_NORMAL
+     */
+    RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, boolean force, int priority, Consumer<Vector2i> regionCallback);
+
+    /**
+     * Schedules a task to update the given regions of the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @return the {@link RenderTask} that will update the regions
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, Collection, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, Collection<Vector2i> regions, boolean force) {
+        return scheduleMapUpdateTaskAsync(map, regions, force, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given regions of the given map and returns a
+     * {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @return the {@link RenderTask} that will update the regions
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, Collection, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(BlueMapMap map, Collection<Vector2i> regions, boolean force, int priority) {
+        return scheduleMapUpdateTaskAsync(map, regions, force, priority, region -> {});
+    }
+
+    /**
+     * Schedules a task to update the given regions of the given map and returns a {@link RenderTask}-handle for it.
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param regionCallback a callback that is called for each of the given regions once it has been updated.<br>
+     *                       It is called on a render-thread, so it should return quickly.
+     * @return the {@link RenderTask} that will update the regions
+     * @see #scheduleMapUpdateTaskAsync(BlueMapMap, Collection, boolean, int, Consumer)
+     */
+    default RenderTask scheduleMapUpdateTaskAsync(
+            BlueMapMap map, Collection<Vector2i> regions, boolean force, Consumer<Vector2i> regionCallback
+    ) {
+        return scheduleMapUpdateTaskAsync(map, regions, force, PRIORITY_NORMAL, regionCallback);
+    }
+
+    /**
+     * Schedules a task with the given priority to update the given regions of the given map and returns a
+     * {@link RenderTask}-handle for it. Use {@link RenderTask#getCompletion()} to wait for all regions to be updated.
+     * <p>Regions that are already part of a scheduled update-task with a lower priority are moved to the new task.
+     * Regions that are already part of a scheduled update-task with the same or a higher priority are not scheduled
+     * again, the completion of the returned task then also waits for that task to update those regions.</p>
+     * @param map the map to be updated
+     * @param regions The regions that should be updated ("region" refers to the coordinates of a minecraft region-file (32x32 chunks, 512x512 blocks))<br>
+     *                BlueMaps updating-system works based on region-files. For this reason you can always only update a whole region-file at once.
+     * @param force it this is true, the task will forcefully re-render all tiles, even if there are no changes since the last map-update.
+     * @param priority the priority of the task, tasks with a higher priority are processed first
+     * @param regionCallback a callback that is called for each of the given regions once it has been updated.<br>
+     *                       It is called on a render-thread, so it should return quickly.
+     * @return the {@link RenderTask} that will update the regions
+     * @see #PRIORITY_NORMAL
+     */
+    RenderTask scheduleMapUpdateTaskAsync(
+            BlueMapMap map, Collection<Vector2i> regions, boolean force, int priority, Consumer<Vector2i> regionCallback
+    );
+
+    /**
+     * Schedules a task to purge the given map and returns a {@link RenderTask}-handle for it.
+     * Use {@link RenderTask#getCompletion()} to wait for the purge to be done.<br>
+     * An update-task will be scheduled right after the purge, to get the map up-to-date again. The returned task
+     * does <b>not</b> include that update-task.
+     * <p>If there is already a purge-task for this map scheduled, no new task is scheduled and the handle of the
+     * already scheduled task is returned.</p>
+     * @param map the map to be purged
+     * @return the {@link RenderTask} that will purge the map
+     */
+    RenderTask scheduleMapPurgeTaskAsync(BlueMapMap map);
+
+    /**
+     * Getter for a snapshot of all tasks that are currently in the render-queue, in the order they will be processed.
+     * <p>The task that is currently being processed is the first element (if there is one).</p>
+     * @return an unmodifiable list of the queued tasks
+     */
+    List<RenderTask> getQueuedTasks();
+
+    /**
+     * Moves the given task to the front of the render-queue, so it will be processed next regardless of its priority.
+     * @param task the task to move
+     * @return true if the task has been moved, false if the task is not (or no longer) in the render-queue
+     */
+    boolean moveToFront(RenderTask task);
+
+    /**
+     * Getter for the priority-aging interval.
+     * @return the current priority-aging interval
+     * @see #setPriorityAging(Duration)
+     */
+    Duration getPriorityAging();
+
+    /**
+     * Sets the priority-aging interval. To prevent low-priority tasks from being starved by a constant stream of
+     * more important tasks, the effective priority of a task rises by one for each such interval it has been waiting
+     * in the render-queue.<br>
+     * A {@link Duration#ZERO zero}-duration disables aging.
+     * @param interval the new priority-aging interval
+     */
+    void setPriorityAging(Duration interval);
+
     /**
      * Getter for the current size of the render-queue.
      * @return the current size of the render-queue
@@ -81,6 +320,64 @@ default boolean scheduleMapUpdateTask(BlueMapMap map) {
      */
     int renderThreadCount();
 
+    /**
+     * Getter for the coalescing-window.
+     * @return the current coalescing-window
+     * @see #setCoalescingWindow(Duration)
+     */
+    Duration getCoalescingWindow();
+
+    /**
+     * Sets a window in which region-updates scheduled using
+     * {@link #scheduleMapUpdateTask(BlueMapMap, Collection, boolean, int)} are coalesced.<br>
+     * If this is set, those updates are handled like
+     * {@link #scheduleMapUpdateTaskDebounced(BlueMapMap, Collection, boolean, Duration)} with this window as delay:
+     * Requests for the same map are merged and duplicate regions are only rendered once.
+     * <p>How many requested regions have been merged this way can be seen in the {@link #getMetrics() metrics}.</p>
+     * @param window the coalescing-window, or {@link Duration#ZERO} to schedule updates immediately (the default)
+     */
+    void setCoalescingWindow(Duration window);
+
+    /**
+     * Getter for the cpu-time budget of the render threads.
+     * @return the cpu-time the render threads may use per second, or {@link Duration#ZERO} if there is no limit
+     * @see #setCpuTimeBudget(Duration)
+     */
+    Duration getCpuTimeBudget();
+
+    /**
+     * Limits the cpu-time that all render threads <b>together</b> may use per second of wall-clock time.<br>
+     * Once the budget of the current second is used up, the render threads pause until the next second. E.g. a
+     * budget of 1.5 seconds allows the renderer to use one and a half cpu-cores on average, no matter how many render
+     * threads there are.
+     * <p>This can be changed at any time and applies immediately.</p>
+     * @param cpuTimePerSecond the cpu-time the render threads may use per second,
+     *                         or {@link Duration#ZERO} to remove the limit
+     */
+    void setCpuTimeBudget(Duration cpuTimePerSecond);
+
+    /**
+     * Getter for the maximum rate at which chunks are rendered.
+     * @return the maximum amount of chunks rendered per second, or <code>0</code> if there is no limit
+     * @see #setMaxChunksPerSecond(double)
+     */
+    double getMaxChunksPerSecond();
+
+    /**
+     * Limits the rate at which all render threads <b>together</b> render chunks.
+     * <p>This can be changed at any time and applies immediately.</p>
+     * @param chunksPerSecond the maximum amount of chunks rendered per second, or <code>0</code> to remove the limit
+     */
+    void setMaxChunksPerSecond(double chunksPerSecond);
+
+    /**
+     * Takes a snapshot of the current metrics of this {@link RenderManager}, e.g. its throughput, the utilization
+     * of the render-threads and the time tasks are waiting in the render-queue.
+     * <p>Taking a snapshot is cheap, so it can be done periodically for monitoring.</p>
+     * @return a snapshot of the render-metrics
+     */
+    RenderMetrics getMetrics();
+
     /**
      * Whether this {@link RenderManager} is currently running or stopped.
      * @return <code>true</code> if this renderer is running
@@ -106,4 +403,53 @@ default boolean scheduleMapUpdateTask(BlueMapMap map) {
      */
     void stop();
 
+    /**
+     * Changes the number of render threads without stopping the renderer.<br>
+     * Additional threads start right away, surplus threads finish their current unit of work and then exit, so no
+     * progress is lost. If the renderer is not running, the new count is used the next time it is started using
+     * {@link #start()}.
+     * <p>Calling this disables any {@link #setThreadCountController(IntUnaryOperator) thread-count-controller}.</p>
+     * @param threadCount the new number of render threads,
+     *                    must be greater than 0 and should be less than or equal to the number of available cpu-cores.
+     */
+    void setThreadCount(int threadCount);
+
+    /**
+     * Sets a controller that adapts the number of render threads while the renderer is running.<br>
+     * The controller is called every few seconds with the current number of render threads and returns the number
+     * of render threads that should be used from then on, which is applied like {@link #setThreadCount(int)}
+     * would (results lower than 1 are treated as 1).
+     * <p>Example, rendering with up to 4 threads and backing off when the server's TPS drop:</p>
+     * <pre>
+     * renderManager.setThreadCountController(RenderManager.adaptiveThreadCount(
+     *         1, 4, () -&gt; 1 - server.getTps() / 20
+     * ));
+     * </pre>
+     * @param controller the controller to use, or <code>null</code> to stop adapting the thread count
+     * @see #adaptiveThreadCount(int, int, DoubleSupplier)
+     */
+    void setThreadCountController(@Nullable IntUnaryOperator controller);
+
+    /**
+     * Creates a thread-count-controller, that adds a render thread while the load is low (below 0.5) and removes one
+     * while the load is high (above 0.8), keeping the thread count between the given min and max.
+     * @param minThreadCount the minimum number of render threads, must be greater than 0
+     * @param maxThreadCount the maximum number of render threads
+     * @param load a supplier for the current load of the system in range 0-1,
+     *             e.g. derived from the server's TPS or the cpu-usage
+     * @return the thread-count-controller
+     * @see #setThreadCountController(IntUnaryOperator)
+     */
+    static IntUnaryOperator adaptiveThreadCount(int minThreadCount, int maxThreadCount, DoubleSupplier load) {
+        if (minThreadCount < 1) throw new IllegalArgumentException("minThreadCount must be greater than 0");
+        if (maxThreadCount < minThreadCount) throw new IllegalArgumentException("maxThreadCount must not be less than minThreadCount");
+
+        return threadCount -> {
+            double currentLoad = load.getAsDouble();
+            if (currentLoad > 0.8) threadCount--;
+            else if (currentLoad < 0.5) threadCount++;
+            return Math.max(minThreadCount, Math.min(maxThreadCount, threadCount));
+        };
+    }
+
 }
@@ -0,0 +1,252 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of the metrics of a {@link RenderManager}.<br>
+ * All counters are counted since the {@link RenderManager} has been created (they are not reset when it is stopped).
+ * @see RenderManager#getMetrics()
+ */
+@SuppressWarnings("unused")
+public interface RenderMetrics {
+
+    /**
+     * Getter for the time when this snapshot has been taken.
+     * @return the time of this snapshot
+     */
+    Instant getTimestamp();
+
+    /**
+     * Getter for the total amount of regions that have been rendered.
+     * @return the amount of rendered regions
+     */
+    long getRenderedRegions();
+
+    /**
+     * Getter for the total amount of chunks that have been rendered.
+     * @return the amount of rendered chunks
+     */
+    long getRenderedChunks();
+
+    /**
+     * Getter for the average amount of regions rendered per second over the last minute.
+     * @return the recent regions per second
+     */
+    double getRegionsPerSecond();
+
+    /**
+     * Getter for the average amount of chunks rendered per second over the last minute.
+     * @return the recent chunks per second
+     */
+    double getChunksPerSecond();
+
+    /**
+     * Getter for the time when the last chunk has been rendered.<br>
+     * If this lies far in the past while there are tasks in the render-queue, the renderer is likely stalled.
+     * @return the time of the last rendered chunk, or an empty optional if nothing has been rendered yet
+     */
+    Optional<Instant> getLastProgressTime();
+
+    /**
+     * Getter for the total amount of regions that have been requested to be updated.
+     * @return the amount of requested regions
+     */
+    long getRequestedRegions();
+
+    /**
+     * Getter for the total amount of requested regions that have been merged with an already pending request for
+     * the same region, instead of being rendered again.
+     * @return the amount of coalesced regions
+     * @see RenderManager#setCoalescingWindow(Duration)
+     */
+    long getCoalescedRegions();
+
+    /**
+     * Getter for the current size of the render-queue.
+     * @return the amount of queued tasks
+     */
+    int getQueueSize();
+
+    /**
+     * Getter for the histogram of the time tasks have been waiting in the render-queue before they started
+     * processing.
+     * @return the queue-wait-time histogram
+     */
+    Histogram getQueueWaitTime();
+
+    /**
+     * Getter for the metrics of each render-thread that is currently running.
+     * @return an unmodifiable list with the metrics of each render-thread
+     */
+    List<ThreadMetrics> getThreads();
+
+    /**
+     * Getter for the metrics of each map, with the key being the map's id.
+     * @return an unmodifiable map of the metrics for each map
+     */
+    Map<String, MapMetrics> getMaps();
+
+    /**
+     * The metrics of a single render-thread.
+     */
+    interface ThreadMetrics {
+
+        /**
+         * Getter for the name of the thread.
+         * @return the thread-name
+         */
+        String getName();
+
+        /**
+         * Whether this thread is currently working on a task.
+         * @return <code>true</code> if the thread is busy
+         */
+        boolean isBusy();
+
+        /**
+         * Getter for the total time this thread has been working on tasks.
+         * @return the busy-time of this thread
+         */
+        Duration getBusyTime();
+
+        /**
+         * Getter for the total time this thread has been waiting for tasks.
+         * @return the idle-time of this thread
+         */
+        Duration getIdleTime();
+
+        /**
+         * Getter for the total time this thread has been paused because of a
+         * {@link RenderManager#setCpuTimeBudget(Duration) cpu-time budget} or
+         * {@link RenderManager#setMaxChunksPerSecond(double) chunk-rate limit}.
+         * @return the throttled-time of this thread
+         */
+        Duration getThrottledTime();
+
+    }
+
+    /**
+     * The render-metrics of a single map.
+     */
+    interface MapMetrics {
+
+        /**
+         * Getter for the total amount of regions of this map that have been rendered.
+         * @return the amount of rendered regions
+         */
+        long getRenderedRegions();
+
+        /**
+         * Getter for the total amount of chunks of this map that have been rendered.
+         * @return the amount of rendered chunks
+         */
+        long getRenderedChunks();
+
+        /**
+         * Getter for the total amount of tiles of this map that have been saved.
+         * @return the amount of saved tiles
+         */
+        long getSavedTiles();
+
+        /**
+         * Getter for the total amount of regions of this map that have been requested to be updated.
+         * @return the amount of requested regions
+         */
+        long getRequestedRegions();
+
+        /**
+         * Getter for the total amount of requested regions of this map that have been merged with an already pending
+         * request for the same region, instead of being rendered again.
+         * @return the amount of coalesced regions
+         */
+        long getCoalescedRegions();
+
+        /**
+         * Getter for the amount of tasks for this map that are currently in the render-queue.
+         * @return the amount of queued tasks
+         */
+        int getQueuedTasks();
+
+        /**
+         * Getter for the total time that has been spent rendering this map.
+         * @return the render-time of this map
+         */
+        Duration getRenderTime();
+
+    }
+
+    /**
+     * A histogram of durations with fixed buckets.
+     */
+    interface Histogram {
+
+        /**
+         * Getter for the total amount of recorded durations.
+         * @return the amount of recorded values
+         */
+        long getCount();
+
+        /**
+         * Getter for the mean of all recorded durations.
+         * @return the mean duration, or {@link Duration#ZERO} if nothing has been recorded
+         */
+        Duration getMean();
+
+        /**
+         * Getter for the longest recorded duration.
+         * @return the max duration, or {@link Duration#ZERO} if nothing has been recorded
+         */
+        Duration getMax();
+
+        /**
+         * Estimates the given percentile from the buckets of this histogram.
+         * @param percentile the percentile in range 0-1 (e.g. <code>0.99</code>)
+         * @return the estimated duration at the given percentile
+         */
+        Duration getPercentile(double percentile);
+
+        /**
+         * Getter for the (inclusive) upper bounds of the buckets of this histogram in ascending order.
+         * @return an unmodifiable list of the bucket-bounds
+         */
+        List<Duration> getBucketBounds();
+
+        /**
+         * Getter for <b>a copy</b> of the counts of each bucket.<br>
+         * The array has one more element than there are {@link #getBucketBounds() bucket-bounds},
+         * the last element is the count of all durations above the highest bound.
+         * @return the bucket-counts
+         */
+        long[] getBucketCounts();
+
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A task in the render-queue of the {@link RenderManager}, that can be used to follow, reprioritize, pause or cancel
+ * the task.
+ * @see RenderManager#getQueuedTasks()
+ * @see RenderManager#scheduleMapUpdateTaskAsync(BlueMapMap, java.util.Collection, boolean, int, java.util.function.Consumer)
+ */
+@SuppressWarnings("unused")
+public interface RenderTask {
+
+    /**
+     * Getter for the {@link BlueMapMap} that this task is rendering.
+     * @return the map of this task
+     */
+    BlueMapMap getMap();
+
+    /**
+     * Getter for a short human-readable description of this task, e.g. <code>"Update map 'world'"</code>.
+     * @return the description of this task
+     */
+    String getDescription();
+
+    /**
+     * Getter for the current {@link State} of this task.
+     * @return the state of this task
+     */
+    State getState();
+
+    /**
+     * Whether this task has been completed or cancelled.
+     * @return <code>true</code> if this task is done
+     */
+    default boolean isDone() {
+        State state = getState();
+        return state == State.COMPLETED || state == State.CANCELLED;
+    }
+
+    /**
+     * Getter for a {@link CompletableFuture} that completes once this task has been completed.<br>
+     * If this task gets cancelled, the future completes exceptionally with a
+     * {@link java.util.concurrent.CancellationException}.
+     * @return the completion-future of this task
+     */
+    CompletableFuture<Void> getCompletion();
+
+    /**
+     * Cancels this task. If the task is queued or paused it is removed from the render-queue, if it is currently
+     * being processed it stops after the current unit of work (e.g. a chunk).<br>
+     * Work that has already been done is kept, so cancelling an update-task can leave a map partially updated.
+     * @return true if the task has been cancelled, false if it was already done
+     */
+    boolean cancel();
+
+    /**
+     * Pauses this task. A paused task stays in the render-queue but is skipped by the render threads until it is
+     * {@link #resume() resumed}, so other tasks (e.g. of other maps) are processed in the meantime.
+     * If the task is currently being processed it pauses after the current unit of work.
+     * @return true if the task has been paused, false if it was already paused or done
+     */
+    boolean pause();
+
+    /**
+     * Resumes this task if it has been {@link #pause() paused}.
+     * @return true if the task has been resumed, false if it was not paused
+     */
+    boolean resume();
+
+    /**
+     * Getter for the estimated progress of this task.
+     * @return the progress in range 0-1, where <code>0</code> means not started and <code>1</code> means done
+     */
+    double getProgress();
+
+    /**
+     * Estimates the time this task will need until it is done, based on the speed it has been progressing so far.
+     * @return the estimated remaining time, or an empty optional if there is no estimate (yet)
+     */
+    Optional<Duration> getEstimatedTimeRemaining();
+
+    /**
+     * Getter for the priority of this task.<br>
+     * Tasks with a higher priority are processed before tasks with a lower priority, tasks with the same priority are
+     * processed in the order they were scheduled.
+     * @return the priority of this task
+     * @see RenderManager#PRIORITY_NORMAL
+     */
+    int getPriority();
+
+    /**
+     * Changes the priority of this task, moving it to the according position in the render-queue.<br>
+     * Changing the priority of a task that is already being processed or has been completed has no effect.
+     * @param priority the new priority of this task
+     * @see RenderManager#PRIORITY_NORMAL
+     */
+    void setPriority(int priority);
+
+    /**
+     * The states of a {@link RenderTask}.
+     */
+    enum State {
+
+        /**
+         * The task is waiting in the render-queue.
+         */
+        QUEUED,
+
+        /**
+         * The task is currently being processed by one or more render threads.
+         */
+        RUNNING,
+
+        /**
+         * The task has been paused and is skipped until it is resumed.
+         */
+        PAUSED,
+
+        /**
+         * The task has been completed.
+         */
+        COMPLETED,
+
+        /**
+         * The task has been cancelled before it was completed.
+         */
+        CANCELLED
+
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import com.flowpowered.math.vector.Vector2d;
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.util.Objects;
+
+/**
+ * A {@link TileFilter} including all tiles whose center lies within a {@link Shape} (in tile-coordinates).
+ */
+class ShapeTileFilter implements TileFilter {
+
+    private final Shape shape;
+    private final double minX, minZ, maxX, maxZ;
+
+    ShapeTileFilter(Shape shape) {
+        this.shape = Objects.requireNonNull(shape, "shape must not be null");
+
+        Vector2d min = shape.getMin(), max = shape.getMax();
+        this.minX = min.getX();
+        this.minZ = min.getY();
+        this.maxX = max.getX();
+        this.maxZ = max.getY();
+    }
+
+    @Override
+    public boolean test(int tileX, int tileZ) {
+        return shape.contains(tileX + 0.5, tileZ + 0.5);
+    }
+
+    @Override
+    public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        double x1 = minTileX + 0.5, z1 = minTileZ + 0.5, x2 = maxTileX + 0.5, z2 = maxTileZ + 0.5;
+        if (x1 > maxX || x2 < minX || z1 > maxZ || z2 < minZ) return true;
+        return !crossesEdge(x1, z1, x2, z2) && !shape.contains(x1, z1);
+    }
+
+    @Override
+    public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        double x1 = minTileX + 0.5, z1 = minTileZ + 0.5, x2 = maxTileX + 0.5, z2 = maxTileZ + 0.5;
+        if (x1 < minX || x2 > maxX || z1 < minZ || z2 > maxZ) return false;
+        return !crossesEdge(x1, z1, x2, z2) && shape.contains(x1, z1);
+    }
+
+    /**
+     * Checks if any edge of the shape touches the given rectangle.<br>
+     * If no edge touches it, the rectangle is either completely inside or completely outside the shape.
+     */
+    private boolean crossesEdge(double x1, double z1, double x2, double z2) {
+        int count = shape.getPointCount();
+        double ax = shape.getX(count - 1), az = shape.getY(count - 1);
+        for (int i = 0; i < count; i++) {
+            double bx = shape.getX(i), bz = shape.getY(i);
+            if (segmentIntersectsRect(ax, az, bx, bz, x1, z1, x2, z2)) return true;
+            ax = bx;
+            az = bz;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if any part of the segment a-b is within the rectangle.
+     */
+    private static boolean segmentIntersectsRect(
+            double ax, double az, double bx, double bz,
+            double x1, double z1, double x2, double z2
+    ) {
+        if (Math.max(ax, bx) < x1 || Math.min(ax, bx) > x2) return false;
+        if (Math.max(az, bz) < z1 || Math.min(az, bz) > z2) return false;
+
+        // the segment's line separates the rectangle if all corners are strictly on the same side
+        double dx = bx - ax, dz = bz - az;
+        double c1 = dx * (z1 - az) - dz * (x1 - ax);
+        double c2 = dx * (z1 - az) - dz * (x2 - ax);
+        double c3 = dx * (z2 - az) - dz * (x1 - ax);
+        double c4 = dx * (z2 - az) - dz * (x2 - ax);
+        return !(c1 > 0 && c2 > 0 && c3 > 0 && c4 > 0) && !(c1 < 0 && c2 < 0 && c3 < 0 && c4 < 0);
+    }
+
+}
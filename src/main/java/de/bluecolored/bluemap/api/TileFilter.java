@@ -0,0 +1,236 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A filter that determines if a specific (hires) tile of a map should be updated or not.
+ * <p>Unlike a plain {@link Predicate}, a {@link TileFilter} can be tested with primitive tile-coordinates (without
+ * creating a {@link Vector2i} for each tile), and can tell if a whole area of tiles is excluded or included.
+ * This allows the renderer to skip large excluded areas (e.g. whole regions) without testing every single tile.</p>
+ * <p>A {@link TileFilter} can be set using {@link BlueMapMap#setTileFilter(Predicate)}.</p>
+ */
+@FunctionalInterface
+public interface TileFilter extends Predicate<Vector2i> {
+
+    /**
+     * Tests if the tile at the given tile-coordinates should be updated.
+     * @param tileX the x-coordinate of the tile
+     * @param tileZ the z-coordinate of the tile
+     * @return true if the tile should be updated, false if not
+     */
+    boolean test(int tileX, int tileZ);
+
+    @Override
+    default boolean test(Vector2i tile) {
+        return test(tile.getX(), tile.getY());
+    }
+
+    /**
+     * Checks if <b>all</b> tiles in the given (inclusive) area are excluded by this filter.<br>
+     * If this method returns false, some tiles of the area might still be excluded.
+     * <p>The default implementation always returns false, implementations should override this
+     * if they can answer it cheaply.</p>
+     * @param minTileX the min x-coordinate of the tiles
+     * @param minTileZ the min z-coordinate of the tiles
+     * @param maxTileX the max x-coordinate of the tiles
+     * @param maxTileZ the max z-coordinate of the tiles
+     * @return true if it is guaranteed that {@link #test(int, int)} returns false for all tiles in the area
+     */
+    default boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        return false;
+    }
+
+    /**
+     * Checks if <b>all</b> tiles in the given (inclusive) area are included by this filter.<br>
+     * If this method returns false, some tiles of the area might still be included.
+     * <p>The default implementation always returns false, implementations should override this
+     * if they can answer it cheaply.</p>
+     * @param minTileX the min x-coordinate of the tiles
+     * @param minTileZ the min z-coordinate of the tiles
+     * @param maxTileX the max x-coordinate of the tiles
+     * @param maxTileZ the max z-coordinate of the tiles
+     * @return true if it is guaranteed that {@link #test(int, int)} returns true for all tiles in the area
+     */
+    default boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        return false;
+    }
+
+    @Override
+    default TileFilter and(Predicate<? super Vector2i> other) {
+        TileFilter a = this, b = of(other);
+        return new TileFilter() {
+            @Override
+            public boolean test(int tileX, int tileZ) {
+                return a.test(tileX, tileZ) && b.test(tileX, tileZ);
+            }
+
+            @Override
+            public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return
+                        a.excludesAll(minTileX, minTileZ, maxTileX, maxTileZ) ||
+                        b.excludesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+
+            @Override
+            public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return
+                        a.includesAll(minTileX, minTileZ, maxTileX, maxTileZ) &&
+                        b.includesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+        };
+    }
+
+    @Override
+    default TileFilter or(Predicate<? super Vector2i> other) {
+        TileFilter a = this, b = of(other);
+        return new TileFilter() {
+            @Override
+            public boolean test(int tileX, int tileZ) {
+                return a.test(tileX, tileZ) || b.test(tileX, tileZ);
+            }
+
+            @Override
+            public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return
+                        a.excludesAll(minTileX, minTileZ, maxTileX, maxTileZ) &&
+                        b.excludesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+
+            @Override
+            public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return
+                        a.includesAll(minTileX, minTileZ, maxTileX, maxTileZ) ||
+                        b.includesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+        };
+    }
+
+    @Override
+    default TileFilter negate() {
+        TileFilter a = this;
+        return new TileFilter() {
+            @Override
+            public boolean test(int tileX, int tileZ) {
+                return !a.test(tileX, tileZ);
+            }
+
+            @Override
+            public boolean excludesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return a.includesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+
+            @Override
+            public boolean includesAll(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+                return a.excludesAll(minTileX, minTileZ, maxTileX, maxTileZ);
+            }
+        };
+    }
+
+    /**
+     * Returns the given predicate as a {@link TileFilter}.<br>
+     * If the predicate already is a {@link TileFilter} it is returned as is, otherwise it will be wrapped
+     * <i>(a wrapped predicate still needs a {@link Vector2i} for each tested tile)</i>.
+     * @param predicate the predicate
+     * @return a {@link TileFilter} that is equivalent to the given predicate
+     */
+    @SuppressWarnings("unchecked")
+    static TileFilter of(Predicate<? super Vector2i> predicate) {
+        Objects.requireNonNull(predicate, "predicate must not be null");
+        if (predicate instanceof TileFilter) return (TileFilter) predicate;
+        return (tileX, tileZ) -> ((Predicate<Vector2i>) predicate).test(new Vector2i(tileX, tileZ));
+    }
+
+    /**
+     * Creates a {@link TileFilter} that includes all tiles.
+     * @return the new {@link TileFilter}
+     */
+    static TileFilter all() {
+        return RectangleTileFilter.ALL;
+    }
+
+    /**
+     * Creates a {@link TileFilter} that includes all tiles within the given (inclusive) rectangle,
+     * and excludes all other tiles.<br>
+     * Multiple rectangles can be combined using {@link #or(Predicate)}.
+     * @param min the min-corner of the rectangle in tile-coordinates
+     * @param max the max-corner of the rectangle in tile-coordinates
+     * @return the new {@link TileFilter}
+     */
+    static TileFilter rectangle(Vector2i min, Vector2i max) {
+        return rectangle(min.getX(), min.getY(), max.getX(), max.getY());
+    }
+
+    /**
+     * Creates a {@link TileFilter} that includes all tiles within the given (inclusive) rectangle,
+     * and excludes all other tiles.<br>
+     * Multiple rectangles can be combined using {@link #or(Predicate)}.
+     * @param minTileX the min x-coordinate of the rectangle
+     * @param minTileZ the min z-coordinate of the rectangle
+     * @param maxTileX the max x-coordinate of the rectangle
+     * @param maxTileZ the max z-coordinate of the rectangle
+     * @return the new {@link TileFilter}
+     */
+    static TileFilter rectangle(int minTileX, int minTileZ, int maxTileX, int maxTileZ) {
+        return new RectangleTileFilter(
+                Math.min(minTileX, maxTileX), Math.min(minTileZ, maxTileZ),
+                Math.max(minTileX, maxTileX), Math.max(minTileZ, maxTileZ)
+        );
+    }
+
+    /**
+     * Creates a {@link TileFilter} that includes all tiles whose center lies within the given {@link Shape},
+     * and excludes all other tiles.<br>
+     * The shape is expected to be in tile-coordinates (a tile (x|z) has its center at (x + 0.5|z + 0.5)).
+     * @param shape the shape in tile-coordinates
+     * @return the new {@link TileFilter}
+     */
+    static TileFilter shape(Shape shape) {
+        return new ShapeTileFilter(shape);
+    }
+
+    /**
+     * Creates a {@link TileFilter} from a bitmap.<br>
+     * The bit at index <code>(tileZ - minTileZ) * width + (tileX - minTileX)</code> defines if the tile is
+     * included. All tiles outside the bitmap are excluded.
+     * <p><i>(The {@link BitSet} is copied, changing it afterwards will not change the filter)</i></p>
+     * @param minTileX the x-coordinate of the first tile in the bitmap
+     * @param minTileZ the z-coordinate of the first tile in the bitmap
+     * @param width the width of the bitmap in tiles
+     * @param height the height of the bitmap in tiles
+     * @param bitmap the bitmap
+     * @return the new {@link TileFilter}
+     */
+    static TileFilter bitmap(int minTileX, int minTileZ, int width, int height, BitSet bitmap) {
+        return new BitmapTileFilter(minTileX, minTileZ, width, height, bitmap);
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.gson;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import de.bluecolored.bluemap.api.markers.*;
+import de.bluecolored.bluemap.api.math.Color;
+import de.bluecolored.bluemap.api.math.Line;
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.bluecolored.bluemap.api.gson.MarkerBinaryWriter.*;
+
+/**
+ * Reads {@link MarkerSet}s, {@link Marker}s and their components from the binary format written by a
+ * {@link MarkerBinaryWriter}.
+ * <p>Everything has to be read in the same order as it has been written.</p>
+ */
+public class MarkerBinaryReader implements Closeable {
+
+    private final DataInputStream in;
+    private final int version;
+    private final List<String> stringTable = new ArrayList<>();
+
+    /**
+     * Creates a new {@link MarkerBinaryReader} and reads the format-header from the given {@link InputStream}.
+     * @param in the {@link InputStream} to read from
+     * @throws IOException if the {@link InputStream} throws an IOException, or the data is not in a supported format
+     */
+    public MarkerBinaryReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != MAGIC) throw new IOException("Invalid data: not a BlueMap marker binary");
+        this.version = readVarInt();
+        if (version > VERSION) throw new IOException("Unsupported marker binary version: " + version);
+    }
+
+    /**
+     * Getter for the format-version of the data that is read by this reader.
+     * @return the format-version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Reads a {@link MarkerSet} with all its markers.
+     * @return the read {@link MarkerSet}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeMarkerSet(MarkerSet)
+     */
+    public MarkerSet readMarkerSet() throws IOException {
+        MarkerSet markerSet = new MarkerSet(
+                readString(),
+                in.readBoolean(),
+                in.readBoolean()
+        );
+        markerSet.setSorting(unZigZag(readVarInt()));
+
+        while (in.readBoolean()) {
+            String key = readString();
+            markerSet.put(key, readMarker());
+        }
+
+        return markerSet;
+    }
+
+    /**
+     * Reads a {@link Marker}.
+     * @return the read {@link Marker}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeMarker(Marker)
+     */
+    public Marker readMarker() throws IOException {
+        int type = readVarInt();
+        String label = readString();
+        Vector3d position = readVector3d();
+        int sorting = unZigZag(readVarInt());
+        boolean listed = in.readBoolean();
+        double minDistance = readCoordinate();
+        double maxDistance = readCoordinate();
+
+        DistanceRangedMarker marker;
+        switch (type) {
+            case TYPE_HTML: {
+                Vector2i anchor = readVector2i();
+                HtmlMarker htmlMarker = new HtmlMarker(label, position, readString(), anchor);
+                htmlMarker.setStyleClasses(readStrings());
+                marker = htmlMarker;
+                break;
+            }
+            case TYPE_POI: {
+                String detail = readDetail(label);
+                String icon = readString();
+                POIMarker poiMarker = new POIMarker(label, position, icon, readVector2i());
+                poiMarker.setDetail(detail);
+                poiMarker.setStyleClasses(readStrings());
+                marker = poiMarker;
+                break;
+            }
+            case TYPE_SHAPE: {
+                String detail = readDetail(label);
+                String link = readNullableString();
+                boolean newTab = in.readBoolean();
+                Shape shape = readShape();
+                List<Shape> holes = readShapes();
+                ShapeMarker shapeMarker = new ShapeMarker(label, position, shape, in.readFloat());
+                shapeMarker.getHoles().addAll(holes);
+                shapeMarker.setDepthTestEnabled(in.readBoolean());
+                shapeMarker.setLineWidth(unZigZag(readVarInt()));
+                shapeMarker.setLineColor(readColor());
+                shapeMarker.setFillColor(readColor());
+                shapeMarker.setDetailLevels(readDetailLevels());
+                if (in.readBoolean()) shapeMarker.updateTriangles(); // triangles are not stored
+                setObjectMarkerBase(shapeMarker, detail, link, newTab);
+                marker = shapeMarker;
+                break;
+            }
+            case TYPE_EXTRUDE: {
+                String detail = readDetail(label);
+                String link = readNullableString();
+                boolean newTab = in.readBoolean();
+                Shape shape = readShape();
+                List<Shape> holes = readShapes();
+                float minY = in.readFloat(), maxY = in.readFloat();
+                ExtrudeMarker extrudeMarker = new ExtrudeMarker(label, position, shape, minY, maxY);
+                extrudeMarker.getHoles().addAll(holes);
+                extrudeMarker.setDepthTestEnabled(in.readBoolean());
+                extrudeMarker.setLineWidth(unZigZag(readVarInt()));
+                extrudeMarker.setLineColor(readColor());
+                extrudeMarker.setFillColor(readColor());
+                extrudeMarker.setDetailLevels(readDetailLevels());
+                if (in.readBoolean()) extrudeMarker.updateTriangles(); // triangles are not stored
+                setObjectMarkerBase(extrudeMarker, detail, link, newTab);
+                marker = extrudeMarker;
+                break;
+            }
+            case TYPE_LINE: {
+                String detail = readDetail(label);
+                String link = readNullableString();
+                boolean newTab = in.readBoolean();
+                LineMarker lineMarker = new LineMarker(label, position, readLine());
+                lineMarker.setDepthTestEnabled(in.readBoolean());
+                lineMarker.setLineWidth(unZigZag(readVarInt()));
+                lineMarker.setLineColor(readColor());
+                setObjectMarkerBase(lineMarker, detail, link, newTab);
+                marker = lineMarker;
+                break;
+            }
+            default:
+                throw new IOException("Invalid data: unknown marker type " + type);
+        }
+
+        marker.setSorting(sorting);
+        marker.setListed(listed);
+        marker.setMinDistance(minDistance);
+        marker.setMaxDistance(maxDistance);
+        return marker;
+    }
+
+    private void setObjectMarkerBase(ObjectMarker marker, String detail, String link, boolean newTab) {
+        if (detail != null) marker.setDetail(detail);
+        if (link != null) marker.setLink(link, newTab);
+    }
+
+    /**
+     * Reads a {@link Shape}.
+     * @return the read {@link Shape}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeShape(Shape)
+     */
+    public Shape readShape() throws IOException {
+        int count = readVarInt();
+        if (count < 3) throw new IOException("Invalid data: a shape has to have at least 3 points");
+
+        boolean fixedPoint = in.readBoolean();
+        double[] coordinates = new double[count * 2];
+        long x = 0, y = 0;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            if (fixedPoint) {
+                x += unZigZag(readVarLong());
+                y += unZigZag(readVarLong());
+                coordinates[i] = fromFixedPoint(x);
+                coordinates[i + 1] = fromFixedPoint(y);
+            } else {
+                coordinates[i] = in.readDouble();
+                coordinates[i + 1] = in.readDouble();
+            }
+        }
+
+        return new Shape(coordinates);
+    }
+
+    private List<Shape> readShapes() throws IOException {
+        int count = readVarInt();
+        List<Shape> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) shapes.add(readShape());
+        return shapes;
+    }
+
+    private List<ShapeDetailLevel> readDetailLevels() throws IOException {
+        int count = readVarInt();
+        List<ShapeDetailLevel> detailLevels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double minDistance = readCoordinate();
+            Shape shape = readShape();
+            detailLevels.add(new ShapeDetailLevel(minDistance, shape, readShapes()));
+        }
+        return detailLevels;
+    }
+
+    /**
+     * Reads a {@link Line}.
+     * @return the read {@link Line}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeLine(Line)
+     */
+    public Line readLine() throws IOException {
+        int count = readVarInt();
+        if (count < 2) throw new IOException("Invalid data: a line has to have at least 2 points");
+
+        boolean fixedPoint = in.readBoolean();
+        double[] coordinates = new double[count * 3];
+        long x = 0, y = 0, z = 0;
+        for (int i = 0; i < coordinates.length; i += 3) {
+            if (fixedPoint) {
+                x += unZigZag(readVarLong());
+                y += unZigZag(readVarLong());
+                z += unZigZag(readVarLong());
+                coordinates[i] = fromFixedPoint(x);
+                coordinates[i + 1] = fromFixedPoint(y);
+                coordinates[i + 2] = fromFixedPoint(z);
+            } else {
+                coordinates[i] = in.readDouble();
+                coordinates[i + 1] = in.readDouble();
+                coordinates[i + 2] = in.readDouble();
+            }
+        }
+
+        return new Line(coordinates);
+    }
+
+    /**
+     * Reads a {@link Color}.
+     * @return the read {@link Color}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeColor(Color)
+     */
+    public Color readColor() throws IOException {
+        if (in.readBoolean()) return new Color(in.readInt());
+        int r = unZigZag(readVarInt()), g = unZigZag(readVarInt()), b = unZigZag(readVarInt());
+        return new Color(r, g, b, in.readFloat());
+    }
+
+    /**
+     * Reads a {@link Vector2d}.
+     * @return the read {@link Vector2d}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeVector2d(Vector2d)
+     */
+    public Vector2d readVector2d() throws IOException {
+        return new Vector2d(readCoordinate(), readCoordinate());
+    }
+
+    /**
+     * Reads a {@link Vector3d}.
+     * @return the read {@link Vector3d}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeVector3d(Vector3d)
+     */
+    public Vector3d readVector3d() throws IOException {
+        return new Vector3d(readCoordinate(), readCoordinate(), readCoordinate());
+    }
+
+    /**
+     * Reads a {@link Vector2i}.
+     * @return the read {@link Vector2i}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeVector2i(Vector2i)
+     */
+    public Vector2i readVector2i() throws IOException {
+        return new Vector2i(unZigZag(readVarInt()), unZigZag(readVarInt()));
+    }
+
+    /**
+     * Reads a {@link Vector3i}.
+     * @return the read {@link Vector3i}
+     * @throws IOException if the underlying stream throws an IOException or the data is invalid
+     * @see MarkerBinaryWriter#writeVector3i(Vector3i)
+     */
+    public Vector3i readVector3i() throws IOException {
+        return new Vector3i(unZigZag(readVarInt()), unZigZag(readVarInt()), unZigZag(readVarInt()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private double readCoordinate() throws IOException {
+        long value = readVarLong();
+        if ((value & 1) != 0) return in.readDouble();
+        return fromFixedPoint(unZigZag(value >>> 1));
+    }
+
+    private String readString() throws IOException {
+        int tag = readVarInt();
+        if (tag >= 2) {
+            if (tag - 2 >= stringTable.size()) throw new IOException("Invalid data: unknown string-table entry");
+            return stringTable.get(tag - 2);
+        }
+
+        byte[] bytes = new byte[readVarInt()];
+        in.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (tag == 1) stringTable.add(value);
+        return value;
+    }
+
+    private String readNullableString() throws IOException {
+        return in.readBoolean() ? readString() : null;
+    }
+
+    private String readDetail(String label) throws IOException {
+        int tag = readVarInt();
+        switch (tag) {
+            case 0: return null;
+            case 1: return label;
+            case 2: return readString();
+            default: throw new IOException("Invalid data: unknown detail tag " + tag);
+        }
+    }
+
+    private List<String> readStrings() throws IOException {
+        int count = readVarInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) values.add(readString());
+        return values;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid data: varint too long");
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid data: varlong too long");
+    }
+
+    private static double fromFixedPoint(long value) {
+        return value / COORDINATE_PRECISION;
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,437 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.gson;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import de.bluecolored.bluemap.api.markers.*;
+import de.bluecolored.bluemap.api.math.Color;
+import de.bluecolored.bluemap.api.math.Line;
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes {@link MarkerSet}s, {@link Marker}s and their components in a compact, versioned binary format, that can be
+ * read again using a {@link MarkerBinaryReader}.
+ * <p>Compared to the json-format of {@link MarkerGson} the binary format uses variable-length integers,
+ * delta-encoded fixed-point coordinates (with the same precision of 4 decimal places used in the json-format),
+ * packed ARGB colors and a table for repeated strings (like icon-addresses or style-classes).</p>
+ * <p>Example:</p>
+ * <pre>
+ * try (MarkerBinaryWriter writer = new MarkerBinaryWriter(Files.newOutputStream(path))) {
+ *     writer.writeMarkerSet(markerSet);
+ * }
+ * </pre>
+ */
+public class MarkerBinaryWriter implements Closeable, Flushable {
+
+    static final int MAGIC = 0x424D4D42; // "BMMB"
+    static final int VERSION = 1;
+
+    static final int MAX_STRING_TABLE_SIZE = 0xFFFF;
+    static final double COORDINATE_PRECISION = 10000d;
+
+    /**
+     * Coordinates above this absolute value can not be represented as fixed-point values and are written as raw doubles
+     */
+    static final double MAX_FIXED_POINT_COORDINATE = 1L << 46;
+
+    static final int
+            TYPE_HTML = 0,
+            TYPE_POI = 1,
+            TYPE_SHAPE = 2,
+            TYPE_EXTRUDE = 3,
+            TYPE_LINE = 4;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> stringTable = new HashMap<>();
+
+    /**
+     * Creates a new {@link MarkerBinaryWriter} and writes the format-header to the given {@link OutputStream}.
+     * @param out the {@link OutputStream} to write to
+     * @throws IOException if the {@link OutputStream} throws an IOException
+     */
+    public MarkerBinaryWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        writeVarInt(VERSION);
+    }
+
+    /**
+     * Writes a {@link MarkerSet} with all its markers.<br>
+     * The markers are written one by one, so the memory used stays the same no matter how many markers the
+     * {@link MarkerSet} contains.
+     * @param markerSet the {@link MarkerSet} to write
+     * @throws IOException if the underlying stream throws an IOException
+     * @see MarkerBinaryReader#readMarkerSet()
+     */
+    public void writeMarkerSet(MarkerSet markerSet) throws IOException {
+        writeString(markerSet.getLabel());
+        out.writeBoolean(markerSet.isToggleable());
+        out.writeBoolean(markerSet.isDefaultHidden());
+        writeVarInt(zigZag(markerSet.getSorting()));
+
+        for (Map.Entry<String, Marker> entry : markerSet.getMarkers().entrySet()) {
+            out.writeBoolean(true);
+            writeString(entry.getKey());
+            writeMarker(entry.getValue());
+        }
+        out.writeBoolean(false);
+    }
+
+    /**
+     * Writes a {@link Marker}.
+     * @param marker the {@link Marker} to write
+     * @throws IOException if the underlying stream throws an IOException
+     * @throws IllegalArgumentException if the marker is not one of the marker-types provided by this API
+     * @see MarkerBinaryReader#readMarker()
+     */
+    public void writeMarker(Marker marker) throws IOException {
+        if (marker instanceof HtmlMarker) {
+            HtmlMarker htmlMarker = (HtmlMarker) marker;
+            writeMarkerBase(TYPE_HTML, htmlMarker);
+            writeVector2i(htmlMarker.getAnchor());
+            writeString(htmlMarker.getHtml());
+            writeStrings(htmlMarker.getStyleClasses());
+        } else if (marker instanceof POIMarker) {
+            POIMarker poiMarker = (POIMarker) marker;
+            writeMarkerBase(TYPE_POI, poiMarker);
+            writeDetail(poiMarker.getDetail(), poiMarker.getLabel());
+            writeRepeatedString(poiMarker.getIconAddress());
+            writeVector2i(poiMarker.getAnchor());
+            writeStrings(poiMarker.getStyleClasses());
+        } else if (marker instanceof ShapeMarker) {
+            ShapeMarker shapeMarker = (ShapeMarker) marker;
+            writeObjectMarkerBase(TYPE_SHAPE, shapeMarker);
+            writeShape(shapeMarker.getShape());
+            writeShapes(shapeMarker.getHoles());
+            out.writeFloat(shapeMarker.getShapeY());
+            out.writeBoolean(shapeMarker.isDepthTestEnabled());
+            writeVarInt(zigZag(shapeMarker.getLineWidth()));
+            writeColor(shapeMarker.getLineColor());
+            writeColor(shapeMarker.getFillColor());
+            writeDetailLevels(shapeMarker.getDetailLevels());
+            out.writeBoolean(shapeMarker.getTriangles() != null);
+        } else if (marker instanceof ExtrudeMarker) {
+            ExtrudeMarker extrudeMarker = (ExtrudeMarker) marker;
+            writeObjectMarkerBase(TYPE_EXTRUDE, extrudeMarker);
+            writeShape(extrudeMarker.getShape());
+            writeShapes(extrudeMarker.getHoles());
+            out.writeFloat(extrudeMarker.getShapeMinY());
+            out.writeFloat(extrudeMarker.getShapeMaxY());
+            out.writeBoolean(extrudeMarker.isDepthTestEnabled());
+            writeVarInt(zigZag(extrudeMarker.getLineWidth()));
+            writeColor(extrudeMarker.getLineColor());
+            writeColor(extrudeMarker.getFillColor());
+            writeDetailLevels(extrudeMarker.getDetailLevels());
+            out.writeBoolean(extrudeMarker.getTriangles() != null);
+        } else if (marker instanceof LineMarker) {
+            LineMarker lineMarker = (LineMarker) marker;
+            writeObjectMarkerBase(TYPE_LINE, lineMarker);
+            writeLine(lineMarker.getLine());
+            out.writeBoolean(lineMarker.isDepthTestEnabled());
+            writeVarInt(zigZag(lineMarker.getLineWidth()));
+            writeColor(lineMarker.getLineColor());
+        } else {
+            throw new IllegalArgumentException("Unsupported marker type: " + marker.getClass().getName());
+        }
+    }
+
+    private void writeMarkerBase(int type, DistanceRangedMarker marker) throws IOException {
+        writeVarInt(type);
+        writeString(marker.getLabel());
+        writeVector3d(marker.getPosition());
+        writeVarInt(zigZag(marker.getSorting()));
+        out.writeBoolean(marker.isListed());
+        writeCoordinate(marker.getMinDistance());
+        writeCoordinate(marker.getMaxDistance());
+    }
+
+    private void writeObjectMarkerBase(int type, ObjectMarker marker) throws IOException {
+        writeMarkerBase(type, marker);
+        writeDetail(marker.getDetail(), marker.getLabel());
+        Optional<String> link = marker.getLink();
+        out.writeBoolean(link.isPresent());
+        if (link.isPresent()) writeRepeatedString(link.get());
+        out.writeBoolean(marker.isNewTab());
+    }
+
+    /**
+     * Writes a {@link Shape}.<br>
+     * The points are written as fixed-point deltas to their previous point.
+     * @param shape the {@link Shape} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeShape(Shape shape) throws IOException {
+        int count = shape.getPointCount();
+        writeVarInt(count);
+
+        boolean fixedPoint = true;
+        for (int i = 0; i < count && fixedPoint; i++) {
+            fixedPoint = isFixedPoint(shape.getX(i)) && isFixedPoint(shape.getY(i));
+        }
+        out.writeBoolean(fixedPoint);
+
+        long lastX = 0, lastY = 0;
+        for (int i = 0; i < count; i++) {
+            if (fixedPoint) {
+                long x = toFixedPoint(shape.getX(i)), y = toFixedPoint(shape.getY(i));
+                writeVarLong(zigZag(x - lastX));
+                writeVarLong(zigZag(y - lastY));
+                lastX = x; lastY = y;
+            } else {
+                out.writeDouble(shape.getX(i));
+                out.writeDouble(shape.getY(i));
+            }
+        }
+    }
+
+    private void writeShapes(Collection<Shape> shapes) throws IOException {
+        Shape[] shapeArray = shapes.toArray(Shape[]::new);
+        writeVarInt(shapeArray.length);
+        for (Shape shape : shapeArray) writeShape(shape);
+    }
+
+    private void writeDetailLevels(List<ShapeDetailLevel> detailLevels) throws IOException {
+        writeVarInt(detailLevels.size());
+        for (ShapeDetailLevel detailLevel : detailLevels) {
+            writeCoordinate(detailLevel.getMinDistance());
+            writeShape(detailLevel.getShape());
+            writeShapes(detailLevel.getHoles());
+        }
+    }
+
+    /**
+     * Writes a {@link Line}.<br>
+     * The points are written as fixed-point deltas to their previous point.
+     * @param line the {@link Line} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeLine(Line line) throws IOException {
+        int count = line.getPointCount();
+        writeVarInt(count);
+
+        boolean fixedPoint = true;
+        for (int i = 0; i < count && fixedPoint; i++) {
+            fixedPoint = isFixedPoint(line.getX(i)) && isFixedPoint(line.getY(i)) && isFixedPoint(line.getZ(i));
+        }
+        out.writeBoolean(fixedPoint);
+
+        long lastX = 0, lastY = 0, lastZ = 0;
+        for (int i = 0; i < count; i++) {
+            if (fixedPoint) {
+                long x = toFixedPoint(line.getX(i)), y = toFixedPoint(line.getY(i)), z = toFixedPoint(line.getZ(i));
+                writeVarLong(zigZag(x - lastX));
+                writeVarLong(zigZag(y - lastY));
+                writeVarLong(zigZag(z - lastZ));
+                lastX = x; lastY = y; lastZ = z;
+            } else {
+                out.writeDouble(line.getX(i));
+                out.writeDouble(line.getY(i));
+                out.writeDouble(line.getZ(i));
+            }
+        }
+    }
+
+    /**
+     * Writes a {@link Color}.<br>
+     * Colors with components in range 0-255 and an alpha-value that is representable with 8 bits are packed into a
+     * single ARGB-integer.
+     * @param color the {@link Color} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeColor(Color color) throws IOException {
+        int r = color.getRed(), g = color.getGreen(), b = color.getBlue();
+        float a = color.getAlpha();
+        int alpha = Math.round(a * 255f);
+
+        boolean packable =
+                (r & 0xFF) == r && (g & 0xFF) == g && (b & 0xFF) == b &&
+                alpha >= 0 && alpha <= 255 && alpha / 255f == a;
+
+        out.writeBoolean(packable);
+        if (packable) {
+            out.writeInt(alpha << 24 | r << 16 | g << 8 | b);
+        } else {
+            writeVarInt(zigZag(r));
+            writeVarInt(zigZag(g));
+            writeVarInt(zigZag(b));
+            out.writeFloat(a);
+        }
+    }
+
+    /**
+     * Writes a {@link Vector2d} as fixed-point values.
+     * @param vector the {@link Vector2d} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeVector2d(Vector2d vector) throws IOException {
+        writeCoordinate(vector.getX());
+        writeCoordinate(vector.getY());
+    }
+
+    /**
+     * Writes a {@link Vector3d} as fixed-point values.
+     * @param vector the {@link Vector3d} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeVector3d(Vector3d vector) throws IOException {
+        writeCoordinate(vector.getX());
+        writeCoordinate(vector.getY());
+        writeCoordinate(vector.getZ());
+    }
+
+    /**
+     * Writes a {@link Vector2i}.
+     * @param vector the {@link Vector2i} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeVector2i(Vector2i vector) throws IOException {
+        writeVarInt(zigZag(vector.getX()));
+        writeVarInt(zigZag(vector.getY()));
+    }
+
+    /**
+     * Writes a {@link Vector3i}.
+     * @param vector the {@link Vector3i} to write
+     * @throws IOException if the underlying stream throws an IOException
+     */
+    public void writeVector3i(Vector3i vector) throws IOException {
+        writeVarInt(zigZag(vector.getX()));
+        writeVarInt(zigZag(vector.getY()));
+        writeVarInt(zigZag(vector.getZ()));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeCoordinate(double value) throws IOException {
+        // lowest bit marks if the value is a fixed-point value or a raw double
+        if (isFixedPoint(value)) {
+            writeVarLong(zigZag(toFixedPoint(value)) << 1);
+        } else {
+            writeVarLong(1);
+            out.writeDouble(value);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        // unique strings (like keys, labels or details) are not added to the string-table, they'd never be used again
+        writeVarInt(0);
+        writeStringBytes(value);
+    }
+
+    private void writeRepeatedString(String value) throws IOException {
+        // 0 = new string, 1 = new string added to the string-table, n >= 2 = string-table entry n - 2
+        Integer index = stringTable.get(value);
+        if (index != null) {
+            writeVarInt(index + 2);
+            return;
+        }
+
+        if (stringTable.size() < MAX_STRING_TABLE_SIZE) {
+            stringTable.put(value, stringTable.size());
+            writeVarInt(1);
+        } else {
+            writeVarInt(0);
+        }
+
+        writeStringBytes(value);
+    }
+
+    private void writeStringBytes(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeDetail(String detail, String label) throws IOException {
+        // the detail defaults to the label, so it is often the same string
+        // 0 = no detail, 1 = same as the label, 2 = own detail-string
+        if (detail == null) {
+            writeVarInt(0);
+        } else if (detail.equals(label)) {
+            writeVarInt(1);
+        } else {
+            writeVarInt(2);
+            writeString(detail);
+        }
+    }
+
+    private void writeStrings(Collection<String> values) throws IOException {
+        String[] valueArray = values.toArray(String[]::new);
+        writeVarInt(valueArray.length);
+        for (String value : valueArray) writeRepeatedString(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static boolean isFixedPoint(double value) {
+        return Math.abs(value) < MAX_FIXED_POINT_COORDINATE;
+    }
+
+    private static long toFixedPoint(double value) {
+        return Math.round(value * COORDINATE_PRECISION);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+}
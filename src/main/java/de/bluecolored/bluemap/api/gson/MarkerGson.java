@@ -37,10 +37,12 @@
 import de.bluecolored.bluemap.api.math.Line;
 import de.bluecolored.bluemap.api.math.Shape;
 
-import java.io.IOException;
+import java.io.*;
 import java.lang.reflect.Type;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
 
 public final class MarkerGson {
@@ -66,6 +68,84 @@ public static GsonBuilder addAdapters(GsonBuilder builder) {
             .registerTypeAdapter(Vector3i.class, new Vector3iAdapter());
     }
 
+    /**
+     * Writes the given {@link MarkerSet} as json to the given {@link OutputStream}, producing the same json as
+     * <code>MarkerGson.INSTANCE.toJson(markerSet)</code> would.<br>
+     * The markers are streamed one by one directly to the output, so the memory used stays the same no matter how many
+     * markers the {@link MarkerSet} contains.
+     * <p>The stream will be flushed but <b>not</b> closed.</p>
+     *
+     * @param markerSet the {@link MarkerSet} to write
+     * @param out the {@link OutputStream} to write to
+     * @throws IOException if the {@link OutputStream} throws an IOException
+     */
+    public static void writeMarkerSet(MarkerSet markerSet, OutputStream out) throws IOException {
+        writeMarkerSet(markerSet, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given {@link MarkerSet} as json to the given {@link WritableByteChannel}.
+     * <p>The channel will <b>not</b> be closed.</p>
+     *
+     * @param markerSet the {@link MarkerSet} to write
+     * @param channel the {@link WritableByteChannel} to write to
+     * @throws IOException if the {@link WritableByteChannel} throws an IOException
+     * @see #writeMarkerSet(MarkerSet, OutputStream)
+     */
+    public static void writeMarkerSet(MarkerSet markerSet, WritableByteChannel channel) throws IOException {
+        writeMarkerSet(markerSet, Channels.newWriter(channel, StandardCharsets.UTF_8));
+    }
+
+    private static void writeMarkerSet(MarkerSet markerSet, Writer writer) throws IOException {
+        Writer bufferedWriter = new BufferedWriter(writer);
+        JsonWriter out = INSTANCE.newJsonWriter(bufferedWriter);
+        writeMarkerSet(markerSet, out, INSTANCE);
+        out.flush();
+    }
+
+    /**
+     * Writes the given {@link MarkerSet} to the given {@link JsonWriter}, using the type-adapters of the given
+     * {@link Gson}-instance (which should have the adapters of {@link #addAdapters(GsonBuilder)} registered) to write
+     * the markers one by one.
+     *
+     * @param markerSet the {@link MarkerSet} to write
+     * @param out the {@link JsonWriter} to write to
+     * @param gson the {@link Gson}-instance providing the type-adapters
+     * @throws IOException if the {@link JsonWriter} throws an IOException
+     * @see #writeMarkerSet(MarkerSet, OutputStream)
+     */
+    public static void writeMarkerSet(MarkerSet markerSet, JsonWriter out, Gson gson) throws IOException {
+        out.beginObject();
+        out.name("label"); out.value(markerSet.getLabel());
+        out.name("toggleable"); out.value(markerSet.isToggleable());
+        out.name("defaultHidden"); out.value(markerSet.isDefaultHidden());
+        out.name("sorting"); out.value(markerSet.getSorting());
+
+        out.name("markers");
+        out.beginObject();
+        for (Map.Entry<String, Marker> entry : markerSet.getMarkers().entrySet()) {
+            out.name(entry.getKey());
+            writeMarker(entry.getValue(), out, gson);
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    static void writeMarker(Marker marker, JsonWriter out, Gson gson) throws IOException {
+        // use the adapter of the actual marker-subclass directly, instead of going through a JsonElement-tree
+        TypeAdapter<Marker> adapter = (TypeAdapter<Marker>) gson.getAdapter(marker.getClass());
+        adapter.write(out, marker);
+    }
+
+    private static void writeRounded(JsonWriter json, double value) throws IOException {
+        // rounding and remove ".0" to save string space
+        double d = Math.round(value * 10000d) / 10000d;
+        if (d == (long) d) json.value((long) d);
+        else json.value(d);
+    }
+
     static class MarkerDeserializer implements JsonDeserializer<Marker> {
 
         private static final Map<String, Class<? extends Marker>> MARKER_TYPES = Map.of(
@@ -96,7 +176,6 @@ public JsonElement serialize(Marker src, Type typeOfSrc, JsonSerializationContex
     }
 
     static class LineAdapter extends TypeAdapter<Line> {
-        private static final Vector3dAdapter VEC3D_ADAPTER = new Vector3dAdapter();
 
         @Override
         public void write(JsonWriter out, Line value) throws IOException {
@@ -106,9 +185,13 @@ public void write(JsonWriter out, Line value) throws IOException {
             }
 
             out.beginArray();
-            for (Vector3d point : value.getPoints()) {
-                VEC3D_ADAPTER.write(out, point);
-            }
+            value.forEachPoint((x, y, z) -> {
+                out.beginObject();
+                out.name("x"); writeRounded(out, x);
+                out.name("y"); writeRounded(out, y);
+                out.name("z"); writeRounded(out, z);
+                out.endObject();
+            });
             out.endArray();
         }
 
@@ -119,23 +202,42 @@ public Line read(JsonReader in) throws IOException {
                 return null;
             }
 
-            List<Vector3d> points = new LinkedList<>();
+            // read the points directly into packed coordinates, without creating a Vector3d for each point
+            double[] coordinates = new double[48];
+            int length = 0;
 
             in.beginArray();
             while (in.peek() != JsonToken.END_ARRAY) {
-                Vector3d point = VEC3D_ADAPTER.read(in);
-                if (point == null) continue;
-                points.add(point);
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+
+                in.beginObject();
+                double x = 0, y = 0, z = 0;
+                while (in.peek() != JsonToken.END_OBJECT) {
+                    switch (in.nextName()) {
+                        case "x" : x = in.nextDouble(); break;
+                        case "y" : y = in.nextDouble(); break;
+                        case "z" : z = in.nextDouble(); break;
+                        default : in.skipValue(); break;
+                    }
+                }
+                in.endObject();
+
+                if (length + 3 > coordinates.length) coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+                coordinates[length++] = x;
+                coordinates[length++] = y;
+                coordinates[length++] = z;
             }
             in.endArray();
 
-            return new Line(points.toArray(Vector3d[]::new));
+            return new Line(coordinates, length);
         }
 
     }
 
     static class ShapeAdapter extends TypeAdapter<Shape> {
-        private static final Vector2dAdapter VEC2D_ADAPTER = new Vector2dAdapter(true);
 
         @Override
         public void write(JsonWriter out, Shape value) throws IOException {
@@ -145,8 +247,11 @@ public void write(JsonWriter out, Shape value) throws IOException {
             }
 
             out.beginArray();
-            for (Vector2d point : value.getPoints()) {
-                VEC2D_ADAPTER.write(out, point);
+            for (int i = 0, count = value.getPointCount(); i < count; i++) {
+                out.beginObject();
+                out.name("x"); writeRounded(out, value.getX(i));
+                out.name("z"); writeRounded(out, value.getY(i));
+                out.endObject();
             }
             out.endArray();
         }
@@ -158,17 +263,35 @@ public Shape read(JsonReader in) throws IOException {
                 return null;
             }
 
-            List<Vector2d> points = new LinkedList<>();
+            // read the points directly into packed coordinates, without creating a Vector2d for each point
+            double[] coordinates = new double[32];
+            int length = 0;
 
             in.beginArray();
             while (in.peek() != JsonToken.END_ARRAY) {
-                Vector2d point = VEC2D_ADAPTER.read(in);
-                if (point == null) continue;
-                points.add(point);
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+
+                in.beginObject();
+                double x = 0, z = 0;
+                while (in.peek() != JsonToken.END_OBJECT) {
+                    switch (in.nextName()) {
+                        case "x" : x = in.nextDouble(); break;
+                        case "z" : z = in.nextDouble(); break;
+                        default : in.skipValue(); break;
+                    }
+                }
+                in.endObject();
+
+                if (length + 2 > coordinates.length) coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+                coordinates[length++] = x;
+                coordinates[length++] = z;
             }
             in.endArray();
 
-            return new Shape(points.toArray(Vector2d[]::new));
+            return new Shape(coordinates, length);
         }
 
     }
@@ -263,13 +386,6 @@ public Vector2d read(JsonReader in) throws IOException {
             return new Vector2d(x, y);
         }
 
-        private void writeRounded(JsonWriter json, double value) throws IOException {
-            // rounding and remove ".0" to save string space
-            double d = Math.round(value * 10000d) / 10000d;
-            if (d == (long) d) json.value((long) d);
-            else json.value(d);
-        }
-
     }
 
     static class Vector3dAdapter extends TypeAdapter<Vector3d> {
@@ -310,13 +426,6 @@ public Vector3d read(JsonReader in) throws IOException {
             return new Vector3d(x, y, z);
         }
 
-        private void writeRounded(JsonWriter json, double value) throws IOException {
-            // rounding and remove ".0" to save string space
-            double d = Math.round(value * 10000d) / 10000d;
-            if (d == (long) d) json.value((long) d);
-            else json.value(d);
-        }
-
     }
 
     static class Vector2iAdapter extends TypeAdapter<Vector2i> {
@@ -61,6 +61,7 @@ public double getMinDistance() {
      */
     public void setMinDistance(double minDistance) {
         this.minDistance = minDistance;
+        markChanged();
     }
 
     /**
@@ -81,6 +82,7 @@ public double getMaxDistance() {
      */
     public void setMaxDistance(double maxDistance) {
         this.maxDistance = maxDistance;
+        markChanged();
     }
 
     @Override
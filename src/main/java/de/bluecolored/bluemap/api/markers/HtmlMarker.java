@@ -91,6 +91,7 @@ public Vector2i getAnchor() {
     @Override
     public void setAnchor(Vector2i anchor) {
         this.anchor = Objects.requireNonNull(anchor, "anchor must not be null");
+        markChanged();
     }
 
     /**
@@ -114,6 +115,7 @@ public String getHtml() {
      */
     public void setHtml(String html) {
         this.html = Objects.requireNonNull(html, "html must not be null");
+        markChanged();
     }
 
     @Override
@@ -128,6 +130,7 @@ public void setStyleClasses(Collection<String> styleClasses) {
 
         this.classes.clear();
         this.classes.addAll(styleClasses);
+        markChanged();
     }
 
     @Override
@@ -136,6 +139,7 @@ public void addStyleClasses(Collection<String> styleClasses) {
             throw new IllegalArgumentException("One of the provided style-classes has an invalid format!");
 
         this.classes.addAll(styleClasses);
+        markChanged();
     }
 
     @Override
@@ -94,6 +94,7 @@ public Line getLine() {
      */
     public void setLine(Line line) {
         this.line = Objects.requireNonNull(line, "line must not be null");
+        markChanged();
     }
 
     /**
@@ -120,6 +121,7 @@ public boolean isDepthTestEnabled() {
      */
     public void setDepthTestEnabled(boolean enabled) {
         this.depthTest = enabled;
+        markChanged();
     }
 
     /**
@@ -136,6 +138,7 @@ public int getLineWidth() {
      */
     public void setLineWidth(int width) {
         this.lineWidth = width;
+        markChanged();
     }
 
     /**
@@ -152,6 +155,7 @@ public Color getLineColor() {
      */
     public void setLineColor(Color color) {
         this.lineColor = Objects.requireNonNull(color, "color must not be null");
+        markChanged();
     }
 
     @Override
@@ -179,7 +183,12 @@ public int hashCode() {
     }
 
     private static Vector3d calculateLineCenter(Line line) {
-        return line.getMin().add(line.getMax()).mul(0.5);
+        Vector3d min = line.getMin(), max = line.getMax();
+        return new Vector3d(
+                (min.getX() + max.getX()) * 0.5,
+                (min.getY() + max.getY()) * 0.5,
+                (min.getZ() + max.getZ()) * 0.5
+        );
     }
 
     /**
@@ -193,6 +202,7 @@ public static Builder builder() {
     public static class Builder extends ObjectMarker.Builder<LineMarker, Builder> {
 
         Line line;
+        Double simplifyTolerance;
         Boolean depthTest;
         Integer lineWidth;
         Color lineColor;
@@ -207,6 +217,19 @@ public Builder line(Line line) {
             return this;
         }
 
+        /**
+         * Simplifies the {@link Line} when the {@link LineMarker} is built, removing all points that are closer than
+         * the given tolerance to the simplified line.
+         * @param tolerance the maximum distance (in blocks) that a removed point may be away from the simplified line
+         * @return this builder for chaining
+         * @see Line#simplify(double)
+         */
+        public Builder simplify(double tolerance) {
+            if (!(tolerance >= 0)) throw new IllegalArgumentException("tolerance must be a positive number");
+            this.simplifyTolerance = tolerance;
+            return this;
+        }
+
         /**
          * Sets the position of the {@link LineMarker} to the center of the {@link Line} (it's bounding box).
          * @return this builder for chaining
@@ -256,9 +279,12 @@ public Builder lineColor(Color color) {
          * @return The new {@link LineMarker}-instance
          */
         public LineMarker build() {
+            Line line = checkNotNull(this.line, "line");
+            if (simplifyTolerance != null) line = line.simplify(simplifyTolerance);
+
             LineMarker marker = new LineMarker(
                     checkNotNull(label, "label"),
-                    checkNotNull(line, "line")
+                    line
             );
             if (depthTest != null) marker.setDepthTestEnabled(depthTest);
             if (lineWidth != null) marker.setLineWidth(lineWidth);
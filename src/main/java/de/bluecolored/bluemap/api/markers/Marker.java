@@ -25,8 +25,11 @@
 package de.bluecolored.bluemap.api.markers;
 
 import com.flowpowered.math.vector.Vector3d;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * The Base-Class for all markers that can be displayed in the web-app.
@@ -45,6 +48,9 @@ public abstract class Marker {
     private int sorting;
     private boolean listed;
 
+    @Nullable
+    private transient volatile CopyOnWriteArrayList<Consumer<Marker>> changeListeners = null;
+
     public Marker(String type, String label, Vector3d position) {
         this.type = Objects.requireNonNull(type, "type cannot be null");
         this.label = Objects.requireNonNull(label, "label cannot be null");
@@ -81,6 +87,7 @@ public void setLabel(String label) {
                 .replace("&", "&amp;")
                 .replace("<", "&lt;")
                 .replace(">", "&gt;");
+        markChanged();
     }
 
     /**
@@ -97,6 +104,7 @@ public Vector3d getPosition() {
      */
     public void setPosition(Vector3d position) {
         this.position = Objects.requireNonNull(position, "position cannot be null");
+        markChanged();
     }
 
     /**
@@ -129,6 +137,7 @@ public int getSorting() {
      */
     public void setSorting(int sorting) {
         this.sorting = sorting;
+        markChanged();
     }
 
     /**
@@ -147,6 +156,28 @@ public boolean isListed() {
      */
     public void setListed(boolean listed) {
         this.listed = listed;
+        markChanged();
+    }
+
+    /**
+     * Registers a listener that gets notified when this marker is changed.
+     * (Used by the {@link MarkerSet}s that contain this marker to keep their internal state up-to-date)
+     */
+    synchronized void addChangeListener(Consumer<Marker> listener) {
+        if (changeListeners == null) changeListeners = new CopyOnWriteArrayList<>();
+        changeListeners.add(listener);
+    }
+
+    synchronized void removeChangeListener(Consumer<Marker> listener) {
+        if (changeListeners == null) return;
+        changeListeners.remove(listener);
+        if (changeListeners.isEmpty()) changeListeners = null;
+    }
+
+    void markChanged() {
+        CopyOnWriteArrayList<Consumer<Marker>> listeners = this.changeListeners;
+        if (listeners == null) return;
+        for (Consumer<Marker> listener : listeners) listener.accept(this);
     }
 
     @Override
@@ -0,0 +1,185 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.markers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the revisions in which the markers of a {@link MarkerSet} have been added, changed or removed.
+ */
+class MarkerHistory {
+
+    private static final int MAX_REMOVED_ENTRIES = 10000;
+
+    private final AtomicLong revision = new AtomicLong();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> removed = new ConcurrentHashMap<>();
+
+    /**
+     * The oldest revision for which all removals are still known
+     */
+    private volatile long oldestRevision = 0;
+
+    long getRevision() {
+        return revision.get();
+    }
+
+    long getOldestRevision() {
+        return oldestRevision;
+    }
+
+    long nextRevision() {
+        return revision.incrementAndGet();
+    }
+
+    /**
+     * Records that the marker with the given key has been added or replaced.
+     */
+    void put(String key, Marker marker) {
+        entries.compute(key, (k, entry) -> {
+            long rev = nextRevision();
+            removed.remove(k);
+
+            if (entry != null) {
+                if (entry.marker == marker) return new Entry(marker, entry.listener, entry.addedRevision, rev);
+                entry.marker.removeChangeListener(entry.listener);
+            }
+
+            ChangeListener listener = new ChangeListener(k);
+            marker.addChangeListener(listener);
+            return new Entry(marker, listener, rev, rev);
+        });
+    }
+
+    /**
+     * Records that the marker with the given key has been removed.
+     */
+    void remove(String key) {
+        entries.computeIfPresent(key, (k, entry) -> {
+            entry.marker.removeChangeListener(entry.listener);
+            removed.put(k, nextRevision());
+            return null;
+        });
+
+        if (removed.size() > MAX_REMOVED_ENTRIES) trimRemoved();
+    }
+
+    /**
+     * Picks up all changes that have been made directly to the given markers-map (bypassing {@link #put(String, Marker)}
+     * and {@link #remove(String)}).
+     */
+    void reconcile(Map<String, Marker> markers) {
+        markers.forEach((key, marker) -> {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.marker != marker) put(key, marker);
+        });
+
+        if (entries.size() != markers.size()) {
+            for (String key : entries.keySet()) {
+                if (!markers.containsKey(key)) remove(key);
+            }
+        }
+    }
+
+    /**
+     * Calls the action for each marker that has been added or changed after the given revision.
+     * The boolean passed to the action is <code>true</code> if the marker has been added after the given revision.
+     */
+    void forEachChanged(long sinceRevision, ChangeConsumer action) {
+        entries.forEach((key, entry) -> {
+            if (entry.changedRevision > sinceRevision)
+                action.accept(key, entry.marker, entry.addedRevision > sinceRevision);
+        });
+    }
+
+    /**
+     * Calls the action for each key of a marker that has been removed after the given revision.
+     */
+    void forEachRemoved(long sinceRevision, Consumer<String> action) {
+        removed.forEach((key, rev) -> {
+            if (rev > sinceRevision) action.accept(key);
+        });
+    }
+
+    private synchronized void trimRemoved() {
+        if (removed.size() <= MAX_REMOVED_ENTRIES) return;
+
+        // forget about the older half of all removals
+        long[] revisions = removed.values().stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        Arrays.sort(revisions);
+        long threshold = revisions[revisions.length / 2];
+
+        oldestRevision = threshold;
+        removed.values().removeIf(rev -> rev <= threshold);
+    }
+
+    interface ChangeConsumer {
+        void accept(String key, Marker marker, boolean added);
+    }
+
+    private class ChangeListener implements Consumer<Marker> {
+
+        private final String key;
+
+        private ChangeListener(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void accept(Marker marker) {
+            Entry current = entries.computeIfPresent(key, (k, entry) -> {
+                if (entry.listener != this) return entry;
+                return new Entry(entry.marker, this, entry.addedRevision, nextRevision());
+            });
+
+            // this listener is no longer registered in the history
+            if (current == null || current.listener != this)
+                marker.removeChangeListener(this);
+        }
+
+    }
+
+    private static class Entry {
+
+        private final Marker marker;
+        private final ChangeListener listener;
+        private final long addedRevision, changedRevision;
+
+        private Entry(Marker marker, ChangeListener listener, long addedRevision, long changedRevision) {
+            this.marker = marker;
+            this.listener = listener;
+            this.addedRevision = addedRevision;
+            this.changedRevision = changedRevision;
+        }
+
+    }
+
+}
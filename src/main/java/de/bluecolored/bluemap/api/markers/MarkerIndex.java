@@ -0,0 +1,280 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.markers;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector3d;
+import de.bluecolored.bluemap.api.math.Line;
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A concurrent spatial index over the markers of a {@link MarkerSet}, bucketing the markers by the
+ * axis-aligned bounding-box (on the xz-plane) they cover into a uniform grid.<br>
+ * Markers covering too many grid-cells (e.g. huge shapes) are kept in a separate list that is always checked.
+ */
+class MarkerIndex {
+
+    private static final int CELL_SIZE_SHIFT = 6; // 64x64 blocks
+    private static final int MAX_CELLS_PER_MARKER = 64;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds or replaces the marker with the given key in this index.
+     */
+    void put(String key, Marker marker) {
+        entries.compute(key, (k, entry) -> {
+            ChangeListener listener = null;
+            if (entry != null) {
+                unlink(k, entry);
+                if (entry.marker == marker) listener = entry.listener;
+                else entry.marker.removeChangeListener(entry.listener);
+            }
+
+            if (listener == null) {
+                listener = new ChangeListener(k);
+                marker.addChangeListener(listener);
+            }
+
+            Entry newEntry = new Entry(marker, listener);
+            link(k, newEntry);
+            return newEntry;
+        });
+    }
+
+    /**
+     * Removes the marker with the given key from this index.
+     */
+    void remove(String key) {
+        entries.computeIfPresent(key, (k, entry) -> {
+            unlink(k, entry);
+            entry.marker.removeChangeListener(entry.listener);
+            return null;
+        });
+    }
+
+    /**
+     * Removes all markers from this index and re-adds all markers of the given map.
+     */
+    synchronized void rebuild(Map<String, Marker> markers) {
+        entries.keySet().forEach(this::remove);
+        markers.forEach(this::put);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Calls the action for each indexed marker whose bounding-box intersects the given area.
+     */
+    void forEachInArea(double minX, double minZ, double maxX, double maxZ, BiConsumer<String, Marker> action) {
+        forEachEntryInArea(minX, minZ, maxX, maxZ, (key, entry) -> action.accept(key, entry.marker));
+    }
+
+    /**
+     * Calls the action for each indexed marker whose bounding-box is within the given radius around the given position.
+     */
+    void forEachInRadius(double x, double z, double radius, BiConsumer<String, Marker> action) {
+        double radiusSquared = radius * radius;
+        forEachEntryInArea(x - radius, z - radius, x + radius, z + radius, (key, entry) -> {
+            double dx = Math.max(Math.max(entry.minX - x, x - entry.maxX), 0);
+            double dz = Math.max(Math.max(entry.minZ - z, z - entry.maxZ), 0);
+            if (dx * dx + dz * dz <= radiusSquared) action.accept(key, entry.marker);
+        });
+    }
+
+    private void forEachEntryInArea(double minX, double minZ, double maxX, double maxZ, BiConsumer<String, Entry> action) {
+        if (minX > maxX || minZ > maxZ) return;
+
+        int minCellX = cell(minX), minCellZ = cell(minZ);
+        int maxCellX = cell(maxX), maxCellZ = cell(maxZ);
+
+        long cellCount = ((long) maxCellX - minCellX + 1) * ((long) maxCellZ - minCellZ + 1);
+        if (cellCount <= cells.size()) {
+            for (int x = minCellX; x <= maxCellX; x++) {
+                for (int z = minCellZ; z <= maxCellZ; z++) {
+                    Set<String> cell = cells.get(cellKey(x, z));
+                    if (cell != null) visitCell(cell, x, z, minCellX, minCellZ, minX, minZ, maxX, maxZ, action);
+                }
+            }
+        } else {
+            // the area covers more cells than there are occupied ones, so rather check only the occupied cells
+            for (Map.Entry<Long, Set<String>> cell : cells.entrySet()) {
+                int x = (int) (cell.getKey() >> 32), z = (int) (long) cell.getKey();
+                if (x < minCellX || x > maxCellX || z < minCellZ || z > maxCellZ) continue;
+                visitCell(cell.getValue(), x, z, minCellX, minCellZ, minX, minZ, maxX, maxZ, action);
+            }
+        }
+
+        for (String key : oversized) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.intersects(minX, minZ, maxX, maxZ)) action.accept(key, entry);
+        }
+    }
+
+    private void visitCell(
+            Set<String> cell, int cellX, int cellZ, int minCellX, int minCellZ,
+            double minX, double minZ, double maxX, double maxZ,
+            BiConsumer<String, Entry> action
+    ) {
+        for (String key : cell) {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.intersects(minX, minZ, maxX, maxZ)) continue;
+
+            // markers spanning multiple cells are only reported from the first cell that is in the queried area
+            if (Math.max(entry.minCellX, minCellX) != cellX) continue;
+            if (Math.max(entry.minCellZ, minCellZ) != cellZ) continue;
+
+            action.accept(key, entry);
+        }
+    }
+
+    private void link(String key, Entry entry) {
+        long cellCount = ((long) entry.maxCellX - entry.minCellX + 1) * ((long) entry.maxCellZ - entry.minCellZ + 1);
+        if (cellCount > MAX_CELLS_PER_MARKER) {
+            oversized.add(key);
+            return;
+        }
+
+        for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+            for (int z = entry.minCellZ; z <= entry.maxCellZ; z++) {
+                cells.compute(cellKey(x, z), (k, cell) -> {
+                    if (cell == null) cell = ConcurrentHashMap.newKeySet();
+                    cell.add(key);
+                    return cell;
+                });
+            }
+        }
+    }
+
+    private void unlink(String key, Entry entry) {
+        if (oversized.remove(key)) return;
+
+        for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+            for (int z = entry.minCellZ; z <= entry.maxCellZ; z++) {
+                cells.computeIfPresent(cellKey(x, z), (k, cell) -> {
+                    cell.remove(key);
+                    return cell.isEmpty() ? null : cell;
+                });
+            }
+        }
+    }
+
+    private static int cell(double blockCoordinate) {
+        return (int) Math.floor(blockCoordinate) >> CELL_SIZE_SHIFT;
+    }
+
+    private static long cellKey(int x, int z) {
+        return (long) x << 32 | z & 0xFFFFFFFFL;
+    }
+
+    private class ChangeListener implements Consumer<Marker> {
+
+        private final String key;
+
+        private ChangeListener(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void accept(Marker marker) {
+            Entry current = entries.computeIfPresent(key, (k, entry) -> {
+                if (entry.listener != this) return entry;
+
+                Entry newEntry = new Entry(entry.marker, this);
+                if (newEntry.hasSameBounds(entry)) return entry;
+
+                unlink(k, entry);
+                link(k, newEntry);
+                return newEntry;
+            });
+
+            // this listener is no longer registered in the index
+            if (current == null || current.listener != this)
+                marker.removeChangeListener(this);
+        }
+
+    }
+
+    private static class Entry {
+
+        private final Marker marker;
+        private final ChangeListener listener;
+        private final double minX, minZ, maxX, maxZ;
+        private final int minCellX, minCellZ, maxCellX, maxCellZ;
+
+        private Entry(Marker marker, ChangeListener listener) {
+            this.marker = marker;
+            this.listener = listener;
+
+            double minX, minZ, maxX, maxZ;
+            if (marker instanceof ShapeMarker || marker instanceof ExtrudeMarker) {
+                Shape shape = marker instanceof ShapeMarker ?
+                        ((ShapeMarker) marker).getShape() :
+                        ((ExtrudeMarker) marker).getShape();
+                Vector2d min = shape.getMin(), max = shape.getMax();
+                minX = min.getX(); minZ = min.getY();
+                maxX = max.getX(); maxZ = max.getY();
+            } else if (marker instanceof LineMarker) {
+                Line line = ((LineMarker) marker).getLine();
+                Vector3d min = line.getMin(), max = line.getMax();
+                minX = min.getX(); minZ = min.getZ();
+                maxX = max.getX(); maxZ = max.getZ();
+            } else {
+                Vector3d position = marker.getPosition();
+                minX = maxX = position.getX();
+                minZ = maxZ = position.getZ();
+            }
+
+            this.minX = minX;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
+            this.minCellX = cell(minX);
+            this.minCellZ = cell(minZ);
+            this.maxCellX = cell(maxX);
+            this.maxCellZ = cell(maxZ);
+        }
+
+        private boolean hasSameBounds(Entry other) {
+            return minX == other.minX && minZ == other.minZ && maxX == other.maxX && maxZ == other.maxZ;
+        }
+
+        private boolean intersects(double minX, double minZ, double maxX, double maxZ) {
+            return this.minX <= maxX && this.maxX >= minX && this.minZ <= maxZ && this.maxZ >= minZ;
+        }
+
+    }
+
+}
@@ -24,6 +24,10 @@
  */
 package de.bluecolored.bluemap.api.markers;
 
+import com.flowpowered.math.vector.Vector2d;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,6 +42,12 @@ public class MarkerSet {
     private int sorting;
     private final ConcurrentHashMap<String, Marker> markers;
 
+    @Nullable
+    private transient volatile MarkerIndex index = null;
+
+    @Nullable
+    private transient volatile MarkerHistory history = null;
+
     /**
      * Empty constructor for deserialization.
      */
@@ -96,6 +106,7 @@ public String getLabel() {
      */
     public void setLabel(String label) {
         this.label = Objects.requireNonNull(label);
+        markPropertiesChanged();
     }
 
     /**
@@ -118,6 +129,7 @@ public boolean isToggleable() {
      */
     public void setToggleable(boolean toggleable) {
         this.toggleable = toggleable;
+        markPropertiesChanged();
     }
 
     /**
@@ -143,6 +155,7 @@ public boolean isDefaultHidden() {
      */
     public void setDefaultHidden(boolean defaultHidden) {
         this.defaultHidden = defaultHidden;
+        markPropertiesChanged();
     }
 
     /**
@@ -165,11 +178,16 @@ public int getSorting() {
      */
     public void setSorting(int sorting) {
         this.sorting = sorting;
+        markPropertiesChanged();
     }
 
     /**
      * Getter for a (modifiable) {@link Map} of all {@link Marker}s in this {@link MarkerSet}.
      * The keys of the map are the id's of the {@link Marker}s.
+     * <p><i>(Prefer {@link #put(String, Marker)} and {@link #remove(String)} to modify the markers of this set,
+     * changes made directly to this map are only picked up by the spatial queries
+     * ({@link #getMarkersInArea(double, double, double, double)}) after a call to {@link #reindex()} and are only
+     * assigned a revision ({@link #getRevision()}) when the next patch is created)</i></p>
      *
      * @return a {@link Map} of all {@link Marker}s of this {@link MarkerSet}.
      */
@@ -192,7 +210,12 @@ public Marker get(String key) {
      * @see Map#put(Object, Object)
      */
     public Marker put(String key, Marker marker) {
-        return getMarkers().put(key, marker);
+        Marker previous = getMarkers().put(key, marker);
+        MarkerIndex index = this.index;
+        if (index != null) index.put(key, marker);
+        MarkerHistory history = this.history;
+        if (history != null) history.put(key, marker);
+        return previous;
     }
 
     /**
@@ -201,7 +224,174 @@ public Marker put(String key, Marker marker) {
      * @see Map#remove(Object)
      */
     public Marker remove(String key) {
-        return getMarkers().remove(key);
+        Marker previous = getMarkers().remove(key);
+        MarkerIndex index = this.index;
+        if (index != null) index.remove(key);
+        MarkerHistory history = this.history;
+        if (history != null) history.remove(key);
+        return previous;
+    }
+
+    /**
+     * Returns all {@link Marker}s of this {@link MarkerSet} whose area overlaps the given (axis-aligned) area on the
+     * xz-plane of the map.<br>
+     * The area of a {@link ShapeMarker}, {@link ExtrudeMarker} or {@link LineMarker} is the bounding-box of its shape or
+     * line, for all other markers it is just their position.
+     * <p>The markers are looked up using a spatial index, which is created with the first query and from then on kept
+     * up-to-date with {@link #put(String, Marker)}, {@link #remove(String)} and any changes to the positions, shapes or
+     * lines of the markers in this set.</p>
+     *
+     * @param minX the min x-coordinate of the area
+     * @param minZ the min z-coordinate of the area
+     * @param maxX the max x-coordinate of the area
+     * @param maxZ the max z-coordinate of the area
+     * @return a new {@link Map} with the id's and {@link Marker}s in the given area
+     */
+    public Map<String, Marker> getMarkersInArea(double minX, double minZ, double maxX, double maxZ) {
+        Map<String, Marker> result = new HashMap<>();
+        getIndex().forEachInArea(minX, minZ, maxX, maxZ, (key, marker) -> {
+            if (markers.get(key) == marker) result.put(key, marker);
+        });
+        return result;
+    }
+
+    /**
+     * Returns all {@link Marker}s of this {@link MarkerSet} whose area overlaps the given (axis-aligned) area on the
+     * xz-plane of the map.<br>
+     * <i>(The y-coordinates of the given {@link Vector2d}s are the z-coordinates on the map)</i>
+     *
+     * @param min the min corner of the area
+     * @param max the max corner of the area
+     * @return a new {@link Map} with the id's and {@link Marker}s in the given area
+     * @see #getMarkersInArea(double, double, double, double)
+     */
+    public Map<String, Marker> getMarkersInArea(Vector2d min, Vector2d max) {
+        return getMarkersInArea(min.getX(), min.getY(), max.getX(), max.getY());
+    }
+
+    /**
+     * Returns all {@link Marker}s of this {@link MarkerSet} whose area is within the given radius around the given
+     * position on the xz-plane of the map.
+     *
+     * @param x the x-coordinate of the center
+     * @param z the z-coordinate of the center
+     * @param radius the radius around the center
+     * @return a new {@link Map} with the id's and {@link Marker}s in the given radius
+     * @see #getMarkersInArea(double, double, double, double)
+     */
+    public Map<String, Marker> getMarkersInRadius(double x, double z, double radius) {
+        Map<String, Marker> result = new HashMap<>();
+        getIndex().forEachInRadius(x, z, radius, (key, marker) -> {
+            if (markers.get(key) == marker) result.put(key, marker);
+        });
+        return result;
+    }
+
+    /**
+     * Returns all {@link Marker}s of this {@link MarkerSet} whose area is within the given radius around the given
+     * position on the xz-plane of the map.<br>
+     * <i>(The y-coordinate of the given {@link Vector2d} is the z-coordinate on the map)</i>
+     *
+     * @param center the center
+     * @param radius the radius around the center
+     * @return a new {@link Map} with the id's and {@link Marker}s in the given radius
+     * @see #getMarkersInRadius(double, double, double)
+     */
+    public Map<String, Marker> getMarkersInRadius(Vector2d center, double radius) {
+        return getMarkersInRadius(center.getX(), center.getY(), radius);
+    }
+
+    /**
+     * Rebuilds the spatial index used by {@link #getMarkersInArea(double, double, double, double)} and
+     * {@link #getMarkersInRadius(double, double, double)}.<br>
+     * Only needed if the {@link Map} returned by {@link #getMarkers()} has been modified directly.
+     */
+    public void reindex() {
+        MarkerIndex index = this.index;
+        if (index != null) index.rebuild(markers);
+    }
+
+    /**
+     * Returns the current revision of this {@link MarkerSet}.<br>
+     * The revision increases with every change to this set or its markers:
+     * Adding, replacing or removing a marker using {@link #put(String, Marker)} or {@link #remove(String)}, changing
+     * a property of this set or calling any setter of a marker in this set.<br>
+     * <i>(Modifications of the mutable collections returned by a marker, like {@link ShapeMarker#getHoles()},
+     * are not detected. Re-{@link #put(String, Marker)} the marker to mark it as changed.)</i>
+     * <p>Revisions are only meaningful for this {@link MarkerSet}-instance, they start at 0 for each new instance.</p>
+     *
+     * @return the current revision
+     * @see #createPatch(long)
+     */
+    public long getRevision() {
+        return getHistory().getRevision();
+    }
+
+    /**
+     * Creates a {@link MarkerSetPatch} containing only the markers that have been added, changed or removed since
+     * the given revision.<br>
+     * If the changes since the given revision are no longer known, a full patch ({@link MarkerSetPatch#isFull()}) is
+     * created, containing all markers of this set.
+     *
+     * @param sinceRevision the revision the patch should be based on, e.g. the revision of the last patch that has been
+     *                      sent to a client
+     * @return the new {@link MarkerSetPatch}
+     * @see #getRevision()
+     */
+    public MarkerSetPatch createPatch(long sinceRevision) {
+        MarkerHistory history = getHistory();
+        history.reconcile(markers);
+
+        long revision = history.getRevision();
+        if (sinceRevision < history.getOldestRevision() || sinceRevision > revision) {
+            MarkerSetPatch patch = new MarkerSetPatch(this, sinceRevision, revision, true);
+            markers.forEach((key, marker) -> patch.add(key, marker, true));
+            return patch;
+        }
+
+        MarkerSetPatch patch = new MarkerSetPatch(this, sinceRevision, revision, false);
+        history.forEachChanged(sinceRevision, patch::add);
+        history.forEachRemoved(sinceRevision, patch::remove);
+        return patch;
+    }
+
+    private void markPropertiesChanged() {
+        MarkerHistory history = this.history;
+        if (history != null) history.nextRevision();
+    }
+
+    private MarkerHistory getHistory() {
+        MarkerHistory history = this.history;
+        if (history == null) {
+            synchronized (this) {
+                history = this.history;
+                if (history == null) {
+                    history = new MarkerHistory();
+                    history.reconcile(markers);
+                    this.history = history;
+                }
+            }
+        }
+        return history;
+    }
+
+    private MarkerIndex getIndex() {
+        MarkerIndex index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new MarkerIndex();
+                    index.rebuild(markers);
+                    this.index = index;
+                }
+            }
+        }
+
+        // the markers-map has been modified directly (or replaced during deserialization)
+        if (index.size() != markers.size()) index.rebuild(markers);
+
+        return index;
     }
 
     @Override
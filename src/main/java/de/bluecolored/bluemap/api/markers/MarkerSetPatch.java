@@ -0,0 +1,193 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.markers;
+
+import java.util.*;
+
+/**
+ * The changes that have been made to a {@link MarkerSet} between two revisions.
+ * <p>A patch contains the current properties of the {@link MarkerSet} and only the {@link Marker}s that have been added,
+ * changed or removed since the base-revision of the patch.<br>
+ * It can be serialized with {@link de.bluecolored.bluemap.api.gson.MarkerGson} just like a {@link MarkerSet}.</p>
+ *
+ * @see MarkerSet#createPatch(long)
+ */
+@SuppressWarnings("FieldMayBeFinal")
+public class MarkerSetPatch {
+
+    private long baseRevision, revision;
+    private boolean full;
+
+    private String label;
+    private boolean toggleable, defaultHidden;
+    private int sorting;
+
+    private Map<String, Marker> added = new HashMap<>();
+    private Map<String, Marker> changed = new HashMap<>();
+    private Set<String> removed = new HashSet<>();
+
+    /**
+     * Empty constructor for deserialization.
+     */
+    @SuppressWarnings("unused")
+    private MarkerSetPatch() {}
+
+    MarkerSetPatch(MarkerSet markerSet, long baseRevision, long revision, boolean full) {
+        this.baseRevision = baseRevision;
+        this.revision = revision;
+        this.full = full;
+        this.label = markerSet.getLabel();
+        this.toggleable = markerSet.isToggleable();
+        this.defaultHidden = markerSet.isDefaultHidden();
+        this.sorting = markerSet.getSorting();
+    }
+
+    /**
+     * Getter for the revision this patch is based on.
+     * Applying this patch to the {@link MarkerSet}-state of this revision results in the state of {@link #getRevision()}.
+     * @return the base-revision of this patch
+     */
+    public long getBaseRevision() {
+        return baseRevision;
+    }
+
+    /**
+     * Getter for the revision of the {@link MarkerSet} at the time this patch was created.
+     * @return the revision of this patch
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Whether this patch contains <b>all</b> markers of the {@link MarkerSet} (as added markers).<br>
+     * This is the case if the changes since the requested base-revision are no longer (or not) known.
+     * Any markers that are not contained in a full patch should be removed when it is applied.
+     * @return <code>true</code> if this patch contains all markers of the {@link MarkerSet}
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Getter for the label of the {@link MarkerSet}.
+     * @return the label of the {@link MarkerSet}
+     * @see MarkerSet#getLabel()
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Checks if the {@link MarkerSet} is toggleable.
+     * @return whether the {@link MarkerSet} is toggleable
+     * @see MarkerSet#isToggleable()
+     */
+    public boolean isToggleable() {
+        return toggleable;
+    }
+
+    /**
+     * Checks if the {@link MarkerSet} is hidden by default.
+     * @return whether the {@link MarkerSet} is hidden by default
+     * @see MarkerSet#isDefaultHidden()
+     */
+    public boolean isDefaultHidden() {
+        return defaultHidden;
+    }
+
+    /**
+     * Getter for the sorting-value of the {@link MarkerSet}.
+     * @return the sorting-value of the {@link MarkerSet}
+     * @see MarkerSet#getSorting()
+     */
+    public int getSorting() {
+        return sorting;
+    }
+
+    /**
+     * Getter for an (unmodifiable) {@link Map} of all {@link Marker}s that have been added since the base-revision.
+     * @return the added {@link Marker}s with their id's as keys
+     */
+    public Map<String, Marker> getAdded() {
+        return Collections.unmodifiableMap(added);
+    }
+
+    /**
+     * Getter for an (unmodifiable) {@link Map} of all {@link Marker}s that have been changed since the base-revision.
+     * @return the changed {@link Marker}s with their id's as keys
+     */
+    public Map<String, Marker> getChanged() {
+        return Collections.unmodifiableMap(changed);
+    }
+
+    /**
+     * Getter for an (unmodifiable) {@link Set} of the id's of all {@link Marker}s that have been removed since the
+     * base-revision.
+     * @return the id's of the removed {@link Marker}s
+     */
+    public Set<String> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Checks if this patch contains any changes to markers.
+     * @return <code>true</code> if no markers have been added, changed or removed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Applies this patch to the given {@link MarkerSet}.
+     * @param markerSet the {@link MarkerSet} to apply this patch to
+     */
+    public void applyTo(MarkerSet markerSet) {
+        markerSet.setLabel(label);
+        markerSet.setToggleable(toggleable);
+        markerSet.setDefaultHidden(defaultHidden);
+        markerSet.setSorting(sorting);
+
+        if (full) {
+            for (String key : markerSet.getMarkers().keySet()) {
+                if (!added.containsKey(key)) markerSet.remove(key);
+            }
+        }
+
+        added.forEach(markerSet::put);
+        changed.forEach(markerSet::put);
+        removed.forEach(markerSet::remove);
+    }
+
+    void add(String key, Marker marker, boolean added) {
+        if (added) this.added.put(key, marker);
+        else this.changed.put(key, marker);
+    }
+
+    void remove(String key) {
+        this.removed.add(key);
+    }
+
+}
@@ -56,6 +56,7 @@ public String getDetail() {
     @Override
     public void setDetail(String detail) {
         this.detail = Objects.requireNonNull(detail);
+        markChanged();
     }
 
     /**
@@ -87,6 +88,7 @@ public boolean isNewTab() {
     public void setLink(String link, boolean newTab) {
         this.link = Objects.requireNonNull(link, "link must not be null");
         this.newTab = newTab;
+        markChanged();
     }
 
     /**
@@ -95,6 +97,7 @@ public void setLink(String link, boolean newTab) {
     public void removeLink() {
         this.link = null;
         this.newTab = false;
+        markChanged();
     }
 
     @Override
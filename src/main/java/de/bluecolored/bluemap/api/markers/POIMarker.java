@@ -88,6 +88,7 @@ public String getDetail() {
     @Override
     public void setDetail(String detail) {
         this.detail = detail;
+        markChanged();
     }
 
     /**
@@ -106,6 +107,7 @@ public Vector2i getAnchor() {
     @Override
     public void setAnchor(Vector2i anchor) {
         this.anchor = Objects.requireNonNull(anchor, "anchor must not be null");
+        markChanged();
     }
 
     /**
@@ -128,6 +130,7 @@ public void setIcon(String iconAddress, int anchorX, int anchorY) {
     public void setIcon(String iconAddress, Vector2i anchor) {
         this.icon = Objects.requireNonNull(iconAddress, "iconAddress must not be null");
         this.anchor = Objects.requireNonNull(anchor, "anchor must not be null");
+        markChanged();
     }
 
     @Override
@@ -142,6 +145,7 @@ public void setStyleClasses(Collection<String> styleClasses) {
 
         this.classes.clear();
         this.classes.addAll(styleClasses);
+        markChanged();
     }
 
     @Override
@@ -150,6 +154,7 @@ public void addStyleClasses(Collection<String> styleClasses) {
             throw new IllegalArgumentException("One of the provided style-classes has an invalid format!");
 
         this.classes.addAll(styleClasses);
+        markChanged();
     }
 
     @Override
@@ -0,0 +1,157 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.markers;
+
+import de.bluecolored.bluemap.api.math.Shape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A level-of-detail variant of the {@link Shape} of a {@link ShapeMarker} or {@link ExtrudeMarker}.<br>
+ * Once the camera is at least {@link #getMinDistance()} away from the marker, the web-app can display the
+ * (usually simplified) shape of this level instead of the full-resolution shape of the marker.
+ * <p>A detail-level is immutable once created.</p>
+ *
+ * @see ShapeMarker#setDetailLevels(Collection)
+ * @see ExtrudeMarker#setDetailLevels(Collection)
+ */
+@SuppressWarnings("FieldMayBeFinal")
+public class ShapeDetailLevel {
+
+    private double minDistance;
+    private Shape shape;
+    private List<Shape> holes;
+
+    /**
+     * Empty constructor for deserialization.
+     */
+    @SuppressWarnings("unused")
+    private ShapeDetailLevel() {
+        this(0, Shape.createRect(0, 0, 1, 1));
+    }
+
+    /**
+     * Creates a new {@link ShapeDetailLevel} without any holes.
+     * @param minDistance the minimum distance of the camera to the marker for this level to be used
+     * @param shape the {@link Shape} of this level
+     */
+    public ShapeDetailLevel(double minDistance, Shape shape) {
+        this(minDistance, shape, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new {@link ShapeDetailLevel}.
+     * @param minDistance the minimum distance of the camera to the marker for this level to be used
+     * @param shape the {@link Shape} of this level
+     * @param holes the hole-{@link Shape}s of this level
+     */
+    public ShapeDetailLevel(double minDistance, Shape shape, Collection<Shape> holes) {
+        if (!(minDistance >= 0)) throw new IllegalArgumentException("minDistance must be a positive number");
+        this.minDistance = minDistance;
+        this.shape = Objects.requireNonNull(shape, "shape must not be null");
+        this.holes = new ArrayList<>(Objects.requireNonNull(holes, "holes must not be null"));
+    }
+
+    /**
+     * Getter for the minimum distance of the camera to the marker for this level to be used.<br>
+     * The level is used until the camera reaches the min-distance of the next level.
+     * @return the minimum distance
+     */
+    public double getMinDistance() {
+        return minDistance;
+    }
+
+    /**
+     * Getter for the {@link Shape} of this level.
+     * @return the {@link Shape}
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Getter for an <b>unmodifiable</b> view of the hole-{@link Shape}s of this level.
+     * @return the holes
+     */
+    public List<Shape> getHoles() {
+        return Collections.unmodifiableList(holes);
+    }
+
+    /**
+     * Creates a new {@link ShapeDetailLevel} by simplifying the given shape and holes together.
+     * @param minDistance the minimum distance of the camera to the marker for this level to be used
+     * @param tolerance the tolerance (in blocks) used to simplify the shape and holes
+     * @param shape the full-resolution {@link Shape}
+     * @param holes the full-resolution hole-{@link Shape}s
+     * @return the new {@link ShapeDetailLevel}
+     * @see Shape#simplifyAll(double, List)
+     */
+    public static ShapeDetailLevel simplified(double minDistance, double tolerance, Shape shape, Collection<Shape> holes) {
+        List<Shape> shapes = new ArrayList<>(holes.size() + 1);
+        shapes.add(shape);
+        shapes.addAll(holes);
+        shapes = Shape.simplifyAll(tolerance, shapes);
+        return new ShapeDetailLevel(minDistance, shapes.get(0), shapes.subList(1, shapes.size()));
+    }
+
+    /**
+     * Sorts the given levels by their min-distance and checks that no two levels have the same min-distance.
+     */
+    static List<ShapeDetailLevel> sorted(Collection<ShapeDetailLevel> detailLevels) {
+        List<ShapeDetailLevel> sorted = new ArrayList<>(detailLevels);
+        for (ShapeDetailLevel level : sorted) Objects.requireNonNull(level, "detailLevels must not contain null");
+        sorted.sort((a, b) -> Double.compare(a.minDistance, b.minDistance));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i - 1).minDistance == sorted.get(i).minDistance)
+                throw new IllegalArgumentException("Two detail-levels can not have the same minDistance!");
+        }
+        return sorted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ShapeDetailLevel that = (ShapeDetailLevel) o;
+
+        if (Double.compare(that.minDistance, minDistance) != 0) return false;
+        if (!shape.equals(that.shape)) return false;
+        return holes.equals(that.holes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(minDistance);
+        result = 31 * result + shape.hashCode();
+        result = 31 * result + holes.hashCode();
+        return result;
+    }
+
+}
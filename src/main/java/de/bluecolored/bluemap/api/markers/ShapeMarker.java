@@ -29,11 +29,10 @@
 import com.flowpowered.math.vector.Vector3d;
 import de.bluecolored.bluemap.api.math.Color;
 import de.bluecolored.bluemap.api.math.Shape;
+import de.bluecolored.bluemap.api.math.Triangulation;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.*;
 
 @SuppressWarnings("FieldMayBeFinal")
 public class ShapeMarker extends ObjectMarker {
@@ -41,12 +40,16 @@ public class ShapeMarker extends ObjectMarker {
 
     private Shape shape;
     private Collection<Shape> holes = new ArrayList<>();
+    private List<ShapeDetailLevel> detailLevels = new ArrayList<>();
     private float shapeY;
     private boolean depthTest = true;
     private int lineWidth = 2;
     private Color lineColor = new Color(255, 0, 0, 1f);
     private Color fillColor = new Color(200, 0, 0, 0.3f);
 
+    @Nullable
+    private int[] triangles = null;
+
     /**
      * Empty constructor for deserialization.
      */
@@ -116,10 +119,14 @@ public float getShapeY() {
      * @param y the new height (y-coordinate) of the shape on the map
      *
      * @see #centerPosition()
+     * @see #updateTriangles()
      */
     public void setShape(Shape shape, float y) {
-        this.shape = Objects.requireNonNull(shape, "shape must not be null");
+        Objects.requireNonNull(shape, "shape must not be null");
+        if (shape != this.shape) this.triangles = null;
+        this.shape = shape;
         this.shapeY = y;
+        markChanged();
     }
 
     /**
@@ -131,6 +138,97 @@ public Collection<Shape> getHoles() {
         return holes;
     }
 
+    /**
+     * Tests if the given position on the map is inside the {@link Shape} of this {@link ShapeMarker} and not inside
+     * any of its holes.
+     * @param x the x-coordinate of the position
+     * @param z the z-coordinate of the position
+     * @return <code>true</code> if the position is inside this marker's shape
+     * @see Shape#contains(double, double)
+     */
+    public boolean contains(double x, double z) {
+        if (!shape.contains(x, z)) return false;
+        for (Shape hole : holes) {
+            if (hole.contains(x, z)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tests for multiple positions on the map if they are inside the {@link Shape} of this {@link ShapeMarker} and not
+     * inside any of its holes.
+     * <p>The result for the position <code>(xs[i], zs[i])</code> is written to <code>results[i]</code>.</p>
+     * @param xs the x-coordinates of the positions
+     * @param zs the z-coordinates of the positions
+     * @param results the array that the results will be written to
+     * @throws IllegalArgumentException if the arrays don't have the same length
+     * @see #contains(double, double)
+     */
+    public void containsAll(double[] xs, double[] zs, boolean[] results) {
+        shape.containsAll(xs, zs, results);
+        for (Shape hole : holes) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] && hole.contains(xs[i], zs[i])) results[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Getter for <b>a copy</b> of the cached triangulation of this {@link ShapeMarker}'s {@link Shape} and holes,
+     * or <code>null</code> if there is none.
+     * <p>If present, the triangulation is sent to the web-app, which then doesn't need to triangulate the shape
+     * itself. The indices refer to the points of the shape, followed by the points of each hole in order.</p>
+     * @return the point-indices of the triangles (three per triangle), or <code>null</code>
+     * @see Triangulation#triangulate(Shape, Collection)
+     */
+    @Nullable
+    public int[] getTriangles() {
+        return triangles != null ? triangles.clone() : null;
+    }
+
+    /**
+     * Triangulates the {@link Shape} and holes of this {@link ShapeMarker} and caches the result, so it is sent to the
+     * web-app along with the marker.
+     * <p><i>(Setting a new {@link Shape} removes the cached triangulation, invoke this again after changing the
+     * shape or the holes)</i></p>
+     * @see #getTriangles()
+     */
+    public void updateTriangles() {
+        this.triangles = Triangulation.triangulate(shape, holes);
+        markChanged();
+    }
+
+    /**
+     * Removes the cached triangulation of this {@link ShapeMarker}, so the web-app triangulates the shape itself.
+     * @see #updateTriangles()
+     */
+    public void clearTriangles() {
+        this.triangles = null;
+        markChanged();
+    }
+
+    /**
+     * Getter for an <b>unmodifiable</b> list of the level-of-detail variants of this {@link ShapeMarker}'s shape,
+     * sorted by their min-distance.
+     * @return the detail-levels of this marker
+     */
+    public List<ShapeDetailLevel> getDetailLevels() {
+        return Collections.unmodifiableList(detailLevels);
+    }
+
+    /**
+     * Sets the level-of-detail variants of this {@link ShapeMarker}'s shape.<br>
+     * If the camera is further away from this marker than the min-distance of a detail-level, the web-app can display
+     * the (usually simplified) shape of that level instead of the full {@link Shape}.
+     * <p><i>(Invoke this again after changing the {@link Shape} to make sure the detail-levels match it)</i></p>
+     * @param detailLevels the new detail-levels, no two of them may have the same min-distance
+     * @see ShapeDetailLevel#simplified(double, double, Shape, Collection)
+     */
+    public void setDetailLevels(Collection<ShapeDetailLevel> detailLevels) {
+        this.detailLevels = ShapeDetailLevel.sorted(detailLevels);
+        markChanged();
+    }
+
     /**
      * Sets the position of this {@link ShapeMarker} to the center of the {@link Shape} (it's bounding box).
      * <p><i>(Invoke this after changing the {@link Shape} to make sure the markers position gets updated as well)</i></p>
@@ -155,6 +253,7 @@ public boolean isDepthTestEnabled() {
      */
     public void setDepthTestEnabled(boolean enabled) {
         this.depthTest = enabled;
+        markChanged();
     }
 
     /**
@@ -171,6 +270,7 @@ public int getLineWidth() {
      */
     public void setLineWidth(int width) {
         this.lineWidth = width;
+        markChanged();
     }
 
     /**
@@ -187,6 +287,7 @@ public Color getLineColor() {
      */
     public void setLineColor(Color color) {
         this.lineColor = Objects.requireNonNull(color, "color must not be null");
+        markChanged();
     }
 
     /**
@@ -203,6 +304,7 @@ public Color getFillColor() {
      */
     public void setFillColor(Color color) {
         this.fillColor = Objects.requireNonNull(color, "color must not be null");
+        markChanged();
     }
 
     /**
@@ -229,6 +331,7 @@ public boolean equals(Object o) {
         if (depthTest != that.depthTest) return false;
         if (lineWidth != that.lineWidth) return false;
         if (!shape.equals(that.shape)) return false;
+        if (!detailLevels.equals(that.detailLevels)) return false;
         if (!lineColor.equals(that.lineColor)) return false;
         return fillColor.equals(that.fillColor);
     }
@@ -237,6 +340,7 @@ public boolean equals(Object o) {
     public int hashCode() {
         int result = super.hashCode();
         result = 31 * result + shape.hashCode();
+        result = 31 * result + detailLevels.hashCode();
         result = 31 * result + (shapeY != 0.0f ? Float.floatToIntBits(shapeY) : 0);
         result = 31 * result + (depthTest ? 1 : 0);
         result = 31 * result + lineWidth;
@@ -263,6 +367,10 @@ public static class Builder extends ObjectMarker.Builder<ShapeMarker, Builder> {
         Shape shape;
         float shapeY;
         Collection<Shape> holes = new ArrayList<>();
+        Double simplifyTolerance;
+        boolean triangulate;
+        List<ShapeDetailLevel> detailLevels = new ArrayList<>();
+        Map<Double, Double> simplifiedDetailLevels = new TreeMap<>();
         Boolean depthTest;
         Integer lineWidth;
         Color lineColor;
@@ -301,6 +409,67 @@ public Builder clearHoles() {
             return this;
         }
 
+        /**
+         * Simplifies the {@link Shape} and all holes when the {@link ShapeMarker} is built, removing all points that are
+         * closer than the given tolerance to the simplified outline.<br>
+         * The shape and holes are simplified together, so the outlines won't intersect and the holes stay inside the shape.
+         * @param tolerance the maximum distance (in blocks) that a removed point may be away from the simplified outline
+         * @return this builder for chaining
+         * @see Shape#simplifyAll(double, List)
+         */
+        public Builder simplify(double tolerance) {
+            if (!(tolerance >= 0)) throw new IllegalArgumentException("tolerance must be a positive number");
+            this.simplifyTolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * <b>Adds</b> a level-of-detail variant of the shape.
+         * @param detailLevel the additional detail-level
+         * @return this builder for chaining
+         * @see ShapeMarker#setDetailLevels(Collection)
+         */
+        public Builder detailLevel(ShapeDetailLevel detailLevel) {
+            this.detailLevels.add(Objects.requireNonNull(detailLevel, "detailLevel must not be null"));
+            return this;
+        }
+
+        /**
+         * <b>Adds</b> a level-of-detail variant of the shape that is created when the {@link ShapeMarker} is built, by
+         * simplifying the (full-resolution) shape and holes with the given tolerance.
+         * @param minDistance the minimum distance of the camera to the marker for this level to be used
+         * @param tolerance the tolerance (in blocks) used to simplify the shape and holes
+         * @return this builder for chaining
+         * @see ShapeDetailLevel#simplified(double, double, Shape, Collection)
+         */
+        public Builder simplifiedDetailLevel(double minDistance, double tolerance) {
+            if (!(minDistance >= 0)) throw new IllegalArgumentException("minDistance must be a positive number");
+            if (!(tolerance >= 0)) throw new IllegalArgumentException("tolerance must be a positive number");
+            this.simplifiedDetailLevels.put(minDistance, tolerance);
+            return this;
+        }
+
+        /**
+         * Removes all detail-levels from this Builder.
+         * @return this builder for chaining
+         */
+        public Builder clearDetailLevels() {
+            this.detailLevels.clear();
+            this.simplifiedDetailLevels.clear();
+            return this;
+        }
+
+        /**
+         * Triangulates the {@link Shape} and holes when the {@link ShapeMarker} is built, and caches the result on the
+         * marker, so the web-app doesn't need to triangulate it itself.
+         * @return this builder for chaining
+         * @see ShapeMarker#updateTriangles()
+         */
+        public Builder triangulate() {
+            this.triangulate = true;
+            return this;
+        }
+
         /**
          * Sets the position of the {@link ShapeMarker} to the center of the {@link Shape} (it's bounding box).
          * @return this builder for chaining
@@ -361,12 +530,30 @@ public Builder fillColor(Color color) {
          * @return The new {@link ShapeMarker}-instance
          */
         public ShapeMarker build() {
+            Shape shape = checkNotNull(this.shape, "shape");
+            Collection<Shape> holes = this.holes;
+            if (simplifyTolerance != null) {
+                List<Shape> shapes = new ArrayList<>(holes.size() + 1);
+                shapes.add(shape);
+                shapes.addAll(holes);
+                shapes = Shape.simplifyAll(simplifyTolerance, shapes);
+                shape = shapes.get(0);
+                holes = shapes.subList(1, shapes.size());
+            }
+
             ShapeMarker marker = new ShapeMarker(
                     checkNotNull(label, "label"),
-                    checkNotNull(shape, "shape"),
+                    shape,
                     shapeY
             );
             marker.getHoles().addAll(holes);
+            if (!detailLevels.isEmpty() || !simplifiedDetailLevels.isEmpty()) {
+                List<ShapeDetailLevel> levels = new ArrayList<>(detailLevels);
+                simplifiedDetailLevels.forEach((minDistance, tolerance) ->
+                        levels.add(ShapeDetailLevel.simplified(minDistance, tolerance, this.shape, this.holes)));
+                marker.setDetailLevels(levels);
+            }
+            if (triangulate) marker.updateTriangles();
             if (depthTest != null) marker.setDepthTestEnabled(depthTest);
             if (lineWidth != null) marker.setLineWidth(lineWidth);
             if (lineColor != null) marker.setLineColor(lineColor);
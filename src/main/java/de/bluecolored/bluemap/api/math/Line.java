@@ -27,6 +27,7 @@
 import com.flowpowered.math.vector.Vector3d;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,29 +35,63 @@
 
 /**
  * A line consisting of 2 or more {@link Vector3d}-points.
+ * <p>The points are stored packed in a single <code>double[]</code> (<code>x0, y0, z0, x1, y1, z1, ...</code>),
+ * use {@link #forEachPoint(PointConsumer)}, {@link #getX(int)}, {@link #getY(int)}, {@link #getZ(int)} or
+ * {@link #getCoordinates()} to access them without creating a {@link Vector3d} for each point.</p>
  */
 public class Line {
 
-    private final Vector3d[] points;
+    private final double[] coordinates;
 
     @Nullable
     private Vector3d min = null, max = null;
 
     public Line(Vector3d... points) {
         if (points.length < 2) throw new IllegalArgumentException("A line has to have at least 2 points!");
-        this.points = points;
+        this.coordinates = new double[points.length * 3];
+        for (int i = 0; i < points.length; i++) {
+            this.coordinates[i * 3] = points[i].getX();
+            this.coordinates[i * 3 + 1] = points[i].getY();
+            this.coordinates[i * 3 + 2] = points[i].getZ();
+        }
     }
 
     public Line(Collection<Vector3d> points) {
         this(points.toArray(Vector3d[]::new));
     }
 
+    /**
+     * Creates a new line from the given packed coordinates (<code>x0, y0, z0, x1, y1, z1, ...</code>).<br>
+     * <i>(The array is copied, changing it afterwards will not change the line)</i>
+     * @param coordinates the packed x, y and z coordinates of the points
+     */
+    public Line(double[] coordinates) {
+        this(coordinates, true);
+    }
+
+    /**
+     * Creates a new line from the first <code>length</code> values of the given packed coordinates
+     * (<code>x0, y0, z0, x1, y1, z1, ...</code>).<br>
+     * <i>(The values are copied, changing the array afterwards will not change the line)</i>
+     * @param coordinates the packed x, y and z coordinates of the points
+     * @param length the amount of values in the array that are used
+     */
+    public Line(double[] coordinates, int length) {
+        this(Arrays.copyOf(coordinates, length), false);
+    }
+
+    private Line(double[] coordinates, boolean copy) {
+        if (coordinates.length % 3 != 0) throw new IllegalArgumentException("The coordinates-array needs a length that is a multiple of 3!");
+        if (coordinates.length < 6) throw new IllegalArgumentException("A line has to have at least 2 points!");
+        this.coordinates = copy ? coordinates.clone() : coordinates;
+    }
+
     /**
      * Getter for the amount of points in this line.
      * @return the amount of points
      */
     public int getPointCount() {
-        return points.length;
+        return coordinates.length / 3;
     }
 
     /**
@@ -65,7 +100,56 @@ public int getPointCount() {
      * @return the point at the given index
      */
     public Vector3d getPoint(int i) {
-        return points[i];
+        return new Vector3d(getX(i), getY(i), getZ(i));
+    }
+
+    /**
+     * Getter for the x-coordinate of the point at the given index.
+     * @param i the index
+     * @return the x-coordinate of the point at the given index
+     */
+    public double getX(int i) {
+        return coordinates[i * 3];
+    }
+
+    /**
+     * Getter for the y-coordinate of the point at the given index.
+     * @param i the index
+     * @return the y-coordinate of the point at the given index
+     */
+    public double getY(int i) {
+        return coordinates[i * 3 + 1];
+    }
+
+    /**
+     * Getter for the z-coordinate of the point at the given index.
+     * @param i the index
+     * @return the z-coordinate of the point at the given index
+     */
+    public double getZ(int i) {
+        return coordinates[i * 3 + 2];
+    }
+
+    /**
+     * Getter for a <b>read-only view</b> of the packed coordinates of all points
+     * (<code>x0, y0, z0, x1, y1, z1, ...</code>).
+     * <p><i>(No data is copied)</i></p>
+     * @return a read-only {@link DoubleBuffer} with the coordinates of this line
+     */
+    public DoubleBuffer getCoordinates() {
+        return DoubleBuffer.wrap(coordinates).asReadOnlyBuffer();
+    }
+
+    /**
+     * Calls the given consumer for each point of this line in order, without creating any objects.
+     * @param consumer the consumer that is called with the coordinates of each point
+     * @param <E> the type of exception that the consumer can throw
+     * @throws E if the consumer throws it, the iteration stops at that point
+     */
+    public <E extends Exception> void forEachPoint(PointConsumer<E> consumer) throws E {
+        for (int i = 0; i < coordinates.length; i += 3) {
+            consumer.accept(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+        }
     }
 
     /**
@@ -74,7 +158,11 @@ public Vector3d getPoint(int i) {
      * @return the points of this line
      */
     public Vector3d[] getPoints() {
-        return Arrays.copyOf(points, points.length);
+        Vector3d[] points = new Vector3d[getPointCount()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = getPoint(i);
+        }
+        return points;
     }
 
     /**
@@ -82,13 +170,7 @@ public Vector3d[] getPoints() {
      * @return the min of the AABB of this line
      */
     public Vector3d getMin() {
-        if (this.min == null) {
-            Vector3d min = points[0];
-            for (int i = 1; i < points.length; i++) {
-                min = min.min(points[i]);
-            }
-            this.min = min;
-        }
+        if (this.min == null) calculateBounds();
         return this.min;
     }
 
@@ -97,16 +179,37 @@ public Vector3d getMin() {
      * @return the max of the AABB of this line
      */
     public Vector3d getMax() {
-        if (this.max == null) {
-            Vector3d max = points[0];
-            for (int i = 1; i < points.length; i++) {
-                max = max.max(points[i]);
-            }
-            this.max = max;
-        }
+        if (this.max == null) calculateBounds();
         return this.max;
     }
 
+    private void calculateBounds() {
+        double minX = coordinates[0], minY = coordinates[1], minZ = coordinates[2];
+        double maxX = minX, maxY = minY, maxZ = minZ;
+        for (int i = 3; i < coordinates.length; i += 3) {
+            minX = Math.min(minX, coordinates[i]);
+            minY = Math.min(minY, coordinates[i + 1]);
+            minZ = Math.min(minZ, coordinates[i + 2]);
+            maxX = Math.max(maxX, coordinates[i]);
+            maxY = Math.max(maxY, coordinates[i + 1]);
+            maxZ = Math.max(maxZ, coordinates[i + 2]);
+        }
+        this.min = new Vector3d(minX, minY, minZ);
+        this.max = new Vector3d(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Creates a simplified version of this line with fewer points, using the Douglas-Peucker algorithm.<br>
+     * Points are only removed if they are closer than the given tolerance to the simplified line,
+     * the first and the last point are always kept.
+     * @param tolerance the maximum distance (in blocks) that a removed point may be away from the simplified line
+     * @return the simplified line, or this line if no point could be removed
+     */
+    public Line simplify(double tolerance) {
+        double[] simplified = Simplification.simplifyLine(coordinates, 3, tolerance);
+        return simplified == coordinates ? this : new Line(simplified, false);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -114,12 +217,12 @@ public boolean equals(Object o) {
 
         Line line = (Line) o;
 
-        return Arrays.equals(points, line.points);
+        return Arrays.equals(coordinates, line.coordinates);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(points);
+        return Arrays.hashCode(coordinates);
     }
 
     /**
@@ -181,4 +284,23 @@ public Line build() {
 
     }
 
+    /**
+     * A consumer for the coordinates of the points of a {@link Line}.
+     * @param <E> the type of exception this consumer can throw
+     * @see #forEachPoint(PointConsumer)
+     */
+    @FunctionalInterface
+    public interface PointConsumer<E extends Exception> {
+
+        /**
+         * Accepts the coordinates of one point.
+         * @param x the x-coordinate of the point
+         * @param y the y-coordinate of the point
+         * @param z the z-coordinate of the point
+         * @throws E if the consumer wants to abort the iteration
+         */
+        void accept(double x, double y, double z) throws E;
+
+    }
+
 }
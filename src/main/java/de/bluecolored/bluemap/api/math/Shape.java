@@ -27,6 +27,7 @@
 import com.flowpowered.math.vector.Vector2d;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,29 +35,70 @@
 
 /**
  * A shape consisting of 3 or more {@link Vector2d}-points on a plane.
+ * <p>The points are stored packed in a single <code>double[]</code> (<code>x0, y0, x1, y1, ...</code>),
+ * use {@link #getX(int)}, {@link #getY(int)} or {@link #getCoordinates()} to access them without creating a
+ * {@link Vector2d} for each point.</p>
  */
 public class Shape {
 
-    private final Vector2d[] points;
+    /**
+     * Shapes with fewer points than this are tested without creating an index
+     */
+    private static final int INDEX_THRESHOLD = 16;
+
+    private final double[] coordinates;
 
     @Nullable
     private Vector2d min = null, max = null;
 
+    @Nullable
+    private ShapeIndex index = null;
+
     public Shape(Vector2d... points) {
         if (points.length < 3) throw new IllegalArgumentException("A shape has to have at least 3 points!");
-        this.points = points;
+        this.coordinates = new double[points.length * 2];
+        for (int i = 0; i < points.length; i++) {
+            this.coordinates[i * 2] = points[i].getX();
+            this.coordinates[i * 2 + 1] = points[i].getY();
+        }
     }
 
     public Shape(Collection<Vector2d> points) {
         this(points.toArray(Vector2d[]::new));
     }
 
+    /**
+     * Creates a new shape from the given packed coordinates (<code>x0, y0, x1, y1, ...</code>).<br>
+     * <i>(The array is copied, changing it afterwards will not change the shape)</i>
+     * @param coordinates the packed x and y coordinates of the points
+     */
+    public Shape(double[] coordinates) {
+        this(coordinates, true);
+    }
+
+    /**
+     * Creates a new shape from the first <code>length</code> values of the given packed coordinates
+     * (<code>x0, y0, x1, y1, ...</code>).<br>
+     * <i>(The values are copied, changing the array afterwards will not change the shape)</i>
+     * @param coordinates the packed x and y coordinates of the points
+     * @param length the amount of values in the array that are used
+     */
+    public Shape(double[] coordinates, int length) {
+        this(Arrays.copyOf(coordinates, length), false);
+    }
+
+    private Shape(double[] coordinates, boolean copy) {
+        if (coordinates.length % 2 != 0) throw new IllegalArgumentException("The coordinates-array needs an even length!");
+        if (coordinates.length < 6) throw new IllegalArgumentException("A shape has to have at least 3 points!");
+        this.coordinates = copy ? coordinates.clone() : coordinates;
+    }
+
     /**
      * Getter for the amount of points in this shape.
      * @return the amount of points
      */
     public int getPointCount() {
-        return points.length;
+        return coordinates.length / 2;
     }
 
     /**
@@ -65,7 +107,35 @@ public int getPointCount() {
      * @return the point at the given index
      */
     public Vector2d getPoint(int i) {
-        return points[i];
+        return new Vector2d(getX(i), getY(i));
+    }
+
+    /**
+     * Getter for the x-coordinate of the point at the given index.
+     * @param i the index
+     * @return the x-coordinate of the point at the given index
+     */
+    public double getX(int i) {
+        return coordinates[i * 2];
+    }
+
+    /**
+     * Getter for the y-coordinate of the point at the given index.
+     * <p>(If the shape is placed on a map, this is the z-coordinate on the map)</p>
+     * @param i the index
+     * @return the y-coordinate of the point at the given index
+     */
+    public double getY(int i) {
+        return coordinates[i * 2 + 1];
+    }
+
+    /**
+     * Getter for a <b>read-only view</b> of the packed coordinates of all points (<code>x0, y0, x1, y1, ...</code>).
+     * <p><i>(No data is copied)</i></p>
+     * @return a read-only {@link DoubleBuffer} with the coordinates of this shape
+     */
+    public DoubleBuffer getCoordinates() {
+        return DoubleBuffer.wrap(coordinates).asReadOnlyBuffer();
     }
 
     /**
@@ -74,7 +144,11 @@ public Vector2d getPoint(int i) {
      * @return the points of this shape
      */
     public Vector2d[] getPoints() {
-        return Arrays.copyOf(points, points.length);
+        Vector2d[] points = new Vector2d[getPointCount()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Vector2d(coordinates[i * 2], coordinates[i * 2 + 1]);
+        }
+        return points;
     }
 
     /**
@@ -83,11 +157,12 @@ public Vector2d[] getPoints() {
      */
     public Vector2d getMin() {
         if (this.min == null) {
-            Vector2d min = points[0];
-            for (int i = 1; i < points.length; i++) {
-                min = min.min(points[i]);
+            double minX = coordinates[0], minY = coordinates[1];
+            for (int i = 2; i < coordinates.length; i += 2) {
+                minX = Math.min(minX, coordinates[i]);
+                minY = Math.min(minY, coordinates[i + 1]);
             }
-            this.min = min;
+            this.min = new Vector2d(minX, minY);
         }
         return this.min;
     }
@@ -98,15 +173,94 @@ public Vector2d getMin() {
      */
     public Vector2d getMax() {
         if (this.max == null) {
-            Vector2d max = points[0];
-            for (int i = 1; i < points.length; i++) {
-                max = max.max(points[i]);
+            double maxX = coordinates[0], maxY = coordinates[1];
+            for (int i = 2; i < coordinates.length; i += 2) {
+                maxX = Math.max(maxX, coordinates[i]);
+                maxY = Math.max(maxY, coordinates[i + 1]);
             }
-            this.max = max;
+            this.max = new Vector2d(maxX, maxY);
         }
         return this.max;
     }
 
+    /**
+     * Tests if the given point is inside this shape (using the even-odd rule).
+     * <p>(If the shape is placed on a map, the y-coordinate is the z-coordinate on the map)</p>
+     * <p><i>For shapes with many points, an index over the edges of the shape is created on the first call,
+     * so that following calls only need to test a few edges.</i></p>
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return <code>true</code> if the point is inside this shape
+     */
+    public boolean contains(double x, double y) {
+        Vector2d min = getMin(), max = getMax();
+        if (x < min.getX() || x > max.getX() || y < min.getY() || y > max.getY()) return false;
+
+        if (coordinates.length < INDEX_THRESHOLD * 2) return ShapeIndex.containsNaive(coordinates, x, y);
+        return getIndex().contains(x, y);
+    }
+
+    /**
+     * Tests for multiple points if they are inside this shape.
+     * <p>The result for the point <code>(xs[i], ys[i])</code> is written to <code>results[i]</code>.</p>
+     * @param xs the x-coordinates of the points
+     * @param ys the y-coordinates of the points
+     * @param results the array that the results will be written to
+     * @throws IllegalArgumentException if the arrays don't have the same length
+     * @see #contains(double, double)
+     */
+    public void containsAll(double[] xs, double[] ys, boolean[] results) {
+        if (xs.length != ys.length || xs.length != results.length)
+            throw new IllegalArgumentException("xs, ys and results need to have the same length!");
+
+        for (int i = 0; i < xs.length; i++) {
+            results[i] = contains(xs[i], ys[i]);
+        }
+    }
+
+    private ShapeIndex getIndex() {
+        if (this.index == null) this.index = new ShapeIndex(coordinates, getMin().getY(), getMax().getY());
+        return this.index;
+    }
+
+    /**
+     * Creates a simplified version of this shape with fewer points, using the Douglas-Peucker algorithm.<br>
+     * Points are only removed if they are closer than the given tolerance to the simplified outline,
+     * the simplified shape always keeps at least 3 points.<br>
+     * Points are kept anyway if removing them would make the outline intersect itself.
+     * <p>Use {@link #simplifyAll(double, List)} to simplify a shape together with its holes.</p>
+     * @param tolerance the maximum distance (in blocks) that a removed point may be away from the simplified outline
+     * @return the simplified shape, or this shape if no point could be removed
+     */
+    public Shape simplify(double tolerance) {
+        double[] simplified = Simplification.simplifyRings(new double[][]{ coordinates }, tolerance)[0];
+        return simplified == coordinates ? this : new Shape(simplified, false);
+    }
+
+    /**
+     * Simplifies multiple shapes together (e.g. a shape and its holes), using the Douglas-Peucker algorithm.<br>
+     * Like {@link #simplify(double)}, but a point is also kept if removing it would make the outline of one shape
+     * intersect the outline of another shape, or would move any point of another shape to the other side of the
+     * outline. So holes that are inside a shape stay inside that shape, and shapes that don't overlap won't overlap
+     * after the simplification.
+     * @param tolerance the maximum distance (in blocks) that a removed point may be away from the simplified outline
+     * @param shapes the shapes to simplify
+     * @return a list with the simplified shapes in the same order, containing the same {@link Shape}-instance
+     * for each shape where no point could be removed
+     */
+    public static List<Shape> simplifyAll(double tolerance, List<Shape> shapes) {
+        double[][] rings = new double[shapes.size()][];
+        for (int i = 0; i < rings.length; i++) rings[i] = shapes.get(i).coordinates;
+
+        double[][] simplified = Simplification.simplifyRings(rings, tolerance);
+
+        List<Shape> result = new ArrayList<>(rings.length);
+        for (int i = 0; i < rings.length; i++) {
+            result.add(simplified[i] == rings[i] ? shapes.get(i) : new Shape(simplified[i], false));
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -114,12 +268,12 @@ public boolean equals(Object o) {
 
         Shape shape = (Shape) o;
 
-        return Arrays.equals(points, shape.points);
+        return Arrays.equals(coordinates, shape.coordinates);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(points);
+        return Arrays.hashCode(coordinates);
     }
 
     /**
@@ -163,15 +317,16 @@ public static Shape createRect(double x1, double y1, double x2, double y2) {
     public static Shape createEllipse(Vector2d centerPos, double radiusX, double radiusY, int points) {
         if (points < 3) throw new IllegalArgumentException("A shape has to have at least 3 points!");
 
-        Vector2d[] pointArray = new Vector2d[points];
+        double[] coordinates = new double[points * 2];
         double segmentAngle = 2 * Math.PI / points;
         double angle = 0d;
         for (int i = 0; i < points; i++) {
-            pointArray[i] = centerPos.add(Math.sin(angle) * radiusX, Math.cos(angle) * radiusY);
+            coordinates[i * 2] = centerPos.getX() + Math.sin(angle) * radiusX;
+            coordinates[i * 2 + 1] = centerPos.getY() + Math.cos(angle) * radiusY;
             angle += segmentAngle;
         }
 
-        return new Shape(pointArray);
+        return new Shape(coordinates, false);
     }
 
     /**
@@ -0,0 +1,138 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.math;
+
+/**
+ * An acceleration structure for point-in-polygon tests on the packed coordinates of a {@link Shape}.<br>
+ * The y-range of the shape is divided into equally sized bands, and each band knows the edges overlapping it.
+ * A test then only has to check the edges of the one band the point is in, instead of all edges of the shape.
+ */
+final class ShapeIndex {
+
+    /**
+     * The maximum amount of band-entries per edge (on average), before fewer bands are used.
+     */
+    private static final int MAX_ENTRIES_PER_EDGE = 8;
+
+    private final double[] coordinates;
+    private final double minY, bandScale;
+    private final int bandCount;
+    private final int[] bandOffsets; // the edges of band b are bandEdges[bandOffsets[b]] until bandEdges[bandOffsets[b + 1]]
+    private final int[] bandEdges;
+
+    ShapeIndex(double[] coordinates, double minY, double maxY) {
+        this.coordinates = coordinates;
+        this.minY = minY;
+
+        int edgeCount = coordinates.length / 2;
+        double height = maxY - minY;
+
+        int bandCount = edgeCount;
+        long entries = countEntries(bandCount, height);
+        while (bandCount > 1 && entries > (long) edgeCount * MAX_ENTRIES_PER_EDGE) {
+            bandCount /= 2;
+            entries = countEntries(bandCount, height);
+        }
+
+        this.bandCount = bandCount;
+        this.bandScale = height > 0 ? bandCount / height : 0;
+        this.bandOffsets = new int[bandCount + 1];
+        this.bandEdges = new int[(int) entries];
+
+        // count the edges per band
+        for (int i = 0; i < edgeCount; i++) {
+            int from = band(edgeMinY(i)), to = band(edgeMaxY(i));
+            for (int b = from; b <= to; b++) bandOffsets[b + 1]++;
+        }
+        for (int b = 0; b < bandCount; b++) bandOffsets[b + 1] += bandOffsets[b];
+
+        // fill in the edges
+        int[] fill = new int[bandCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int from = band(edgeMinY(i)), to = band(edgeMaxY(i));
+            for (int b = from; b <= to; b++) bandEdges[bandOffsets[b] + fill[b]++] = i;
+        }
+    }
+
+    /**
+     * Tests if the given point is inside the shape, using the same even-odd rule as {@link #containsNaive}.
+     */
+    boolean contains(double x, double y) {
+        int b = band(y);
+        boolean inside = false;
+        for (int e = bandOffsets[b], end = bandOffsets[b + 1]; e < end; e++) {
+            if (crosses(coordinates, bandEdges[e], x, y)) inside = !inside;
+        }
+        return inside;
+    }
+
+    /**
+     * Tests if the given point is inside the shape described by the given coordinates, by testing all edges.
+     */
+    static boolean containsNaive(double[] coordinates, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, edgeCount = coordinates.length / 2; i < edgeCount; i++) {
+            if (crosses(coordinates, i, x, y)) inside = !inside;
+        }
+        return inside;
+    }
+
+    /**
+     * Tests if a ray from the given point towards positive x crosses the edge from point i to the next point.
+     */
+    private static boolean crosses(double[] coordinates, int i, double x, double y) {
+        int j = (i + 1) * 2 % coordinates.length;
+        double xi = coordinates[i * 2], yi = coordinates[i * 2 + 1];
+        double xj = coordinates[j], yj = coordinates[j + 1];
+        return (yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi;
+    }
+
+    private long countEntries(int bandCount, double height) {
+        double scale = height > 0 ? bandCount / height : 0;
+        long entries = 0;
+        for (int i = 0, edgeCount = coordinates.length / 2; i < edgeCount; i++) {
+            entries += band(edgeMaxY(i), bandCount, scale) - band(edgeMinY(i), bandCount, scale) + 1;
+        }
+        return entries;
+    }
+
+    private double edgeMinY(int i) {
+        return Math.min(coordinates[i * 2 + 1], coordinates[(i + 1) * 2 % coordinates.length + 1]);
+    }
+
+    private double edgeMaxY(int i) {
+        return Math.max(coordinates[i * 2 + 1], coordinates[(i + 1) * 2 % coordinates.length + 1]);
+    }
+
+    private int band(double y) {
+        return band(y, bandCount, bandScale);
+    }
+
+    private int band(double y, int bandCount, double scale) {
+        int band = (int) ((y - minY) * scale);
+        return Math.max(0, Math.min(bandCount - 1, band));
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.math;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of the Douglas-Peucker polyline-simplification on packed coordinate-arrays.
+ * <p>Used by {@link Line#simplify(double)}, {@link Shape#simplify(double)} and {@link Shape#simplifyAll(double, java.util.List)}.</p>
+ */
+final class Simplification {
+
+    private Simplification() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Simplifies the given packed coordinates of an open line so that no removed point is further than the tolerance
+     * away from the simplified line.<br>
+     * The first and last point are always kept.
+     * @param coordinates the packed coordinates
+     * @param dimensions the amount of coordinates per point
+     * @param tolerance the maximum distance a removed point may have to the simplified line
+     * @return the simplified coordinates, or the same array if no point could be removed
+     */
+    static double[] simplifyLine(double[] coordinates, int dimensions, double tolerance) {
+        checkTolerance(tolerance);
+
+        int count = coordinates.length / dimensions;
+        boolean[] keep = new boolean[count];
+        keep[0] = keep[count - 1] = true;
+        douglasPeucker(coordinates, dimensions, 0, count - 1, tolerance * tolerance, keep);
+
+        return collect(coordinates, dimensions, keep);
+    }
+
+    /**
+     * Simplifies the given packed 2D-coordinates of multiple closed rings together, so that no removed point is
+     * further than the tolerance away from the simplified ring, while keeping the topology of the rings:<br>
+     * A point is kept anyway if removing it would make the simplified outline cross another (simplified) segment of
+     * any of the rings, or would move a point of any of the rings to the other side of the outline
+     * (e.g. a hole outside of its shape).<br>
+     * Each ring always keeps at least 3 points.
+     * @param rings the packed coordinates of each ring
+     * @param tolerance the maximum distance a removed point may have to the simplified ring
+     * @return the simplified coordinates of each ring, with the same array for each ring where no point could be removed
+     */
+    static double[][] simplifyRings(double[][] rings, double tolerance) {
+        checkTolerance(tolerance);
+
+        double toleranceSquared = tolerance * tolerance;
+        boolean[][] keep = new boolean[rings.length][];
+        for (int r = 0; r < rings.length; r++) {
+            keep[r] = simplifyRing(rings[r], toleranceSquared);
+        }
+
+        //noinspection StatementWithEmptyBody
+        while (restoreTopology(rings, keep));
+
+        double[][] simplified = new double[rings.length][];
+        for (int r = 0; r < rings.length; r++) {
+            simplified[r] = collect(rings[r], 2, keep[r]);
+        }
+        return simplified;
+    }
+
+    /**
+     * Marks the points of a single closed ring that need to be kept, without considering the topology.
+     */
+    private static boolean[] simplifyRing(double[] coordinates, double toleranceSquared) {
+        int count = coordinates.length / 2;
+        boolean[] keep = new boolean[count];
+
+        // split the ring at the first point and the point furthest away from it
+        int furthest = 0;
+        double furthestDistance = 0;
+        for (int i = 1; i < count; i++) {
+            double distance = distanceSquared(coordinates, 2, 0, i);
+            if (distance > furthestDistance) {
+                furthest = i;
+                furthestDistance = distance;
+            }
+        }
+        if (furthest == 0) { // all points are equal
+            Arrays.fill(keep, true);
+            return keep;
+        }
+
+        keep[0] = keep[furthest] = true;
+        douglasPeucker(coordinates, 2, 0, furthest, toleranceSquared, keep);
+        douglasPeucker(coordinates, 2, furthest, count, toleranceSquared, keep);
+
+        // a shape needs at least 3 points, so keep the one furthest away from the other two if necessary
+        if (countKept(keep) < 3) {
+            int third = -1;
+            double thirdDistance = -1;
+            for (int i = 1; i < count; i++) {
+                if (i == furthest) continue;
+                double distance = segmentDistanceSquared(coordinates, 2, i, 0, furthest);
+                if (distance > thirdDistance) {
+                    third = i;
+                    thirdDistance = distance;
+                }
+            }
+            keep[third] = true;
+        }
+
+        return keep;
+    }
+
+    /**
+     * Finds all simplified segments that cross another simplified segment, or whose removed points enclose a kept
+     * point, and keeps the removed point furthest away from each of those segments.
+     * @return true if any point has been added, false if the topology is already correct
+     */
+    private static boolean restoreTopology(double[][] rings, boolean[][] keep) {
+        int segmentCount = 0;
+        for (boolean[] k : keep) segmentCount += countKept(k);
+
+        // each kept point is the start of one simplified segment
+        int[] ringOf = new int[segmentCount], startOf = new int[segmentCount], endOf = new int[segmentCount];
+        double[] minX = new double[segmentCount];
+        int s = 0;
+        for (int r = 0; r < rings.length; r++) {
+            int first = s;
+            for (int i = 0; i < keep[r].length; i++) {
+                if (!keep[r][i]) continue;
+                if (s > first) endOf[s - 1] = i;
+                ringOf[s] = r;
+                startOf[s] = i;
+                minX[s] = rings[r][i * 2];
+                s++;
+            }
+            endOf[s - 1] = startOf[first];
+        }
+
+        boolean[] violating = new boolean[segmentCount];
+
+        // 1. simplified segments crossing each other (sweep over the segments sorted by their min x)
+        for (int i = 0; i < segmentCount; i++) {
+            minX[i] = Math.min(minX[i], rings[ringOf[i]][endOf[i] * 2]);
+        }
+        Integer[] order = new Integer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(minX[a], minX[b]));
+
+        for (int oi = 0; oi < segmentCount; oi++) {
+            int i = order[oi];
+            double[] ri = rings[ringOf[i]];
+            double ax = ri[startOf[i] * 2], az = ri[startOf[i] * 2 + 1];
+            double bx = ri[endOf[i] * 2], bz = ri[endOf[i] * 2 + 1];
+            double maxX = Math.max(ax, bx);
+
+            for (int oj = oi + 1; oj < segmentCount && minX[order[oj]] <= maxX; oj++) {
+                int j = order[oj];
+
+                // adjacent segments always share a point
+                if (ringOf[i] == ringOf[j] && (startOf[i] == endOf[j] || endOf[i] == startOf[j])) continue;
+
+                double[] rj = rings[ringOf[j]];
+                double cx = rj[startOf[j] * 2], cz = rj[startOf[j] * 2 + 1];
+                double dx = rj[endOf[j] * 2], dz = rj[endOf[j] * 2 + 1];
+                if (segmentsIntersect(ax, az, bx, bz, cx, cz, dx, dz)) {
+                    violating[i] = true;
+                    violating[j] = true;
+                }
+            }
+        }
+
+        // 2. kept points within the area between a simplified segment and the points it replaced
+        int[] points = new int[segmentCount * 2]; // ring, index
+        for (int i = 0; i < segmentCount; i++) {
+            points[i * 2] = ringOf[i];
+            points[i * 2 + 1] = startOf[i];
+        }
+        Integer[] pointOrder = new Integer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) pointOrder[i] = i;
+        Arrays.sort(pointOrder, (a, b) -> Double.compare(
+                rings[points[a * 2]][points[a * 2 + 1] * 2],
+                rings[points[b * 2]][points[b * 2 + 1] * 2]
+        ));
+        double[] sortedX = new double[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int p = pointOrder[i];
+            sortedX[i] = rings[points[p * 2]][points[p * 2 + 1] * 2];
+        }
+
+        for (int i = 0; i < segmentCount; i++) {
+            if (violating[i]) continue;
+
+            double[] ring = rings[ringOf[i]];
+            int count = ring.length / 2;
+            int start = startOf[i], end = endOf[i];
+            if ((start + 1) % count == end) continue; // nothing has been removed
+
+            double chainMinX = Double.POSITIVE_INFINITY, chainMinZ = Double.POSITIVE_INFINITY;
+            double chainMaxX = Double.NEGATIVE_INFINITY, chainMaxZ = Double.NEGATIVE_INFINITY;
+            for (int p = start; ; p = (p + 1) % count) {
+                chainMinX = Math.min(chainMinX, ring[p * 2]);
+                chainMaxX = Math.max(chainMaxX, ring[p * 2]);
+                chainMinZ = Math.min(chainMinZ, ring[p * 2 + 1]);
+                chainMaxZ = Math.max(chainMaxZ, ring[p * 2 + 1]);
+                if (p == end) break;
+            }
+
+            int from = lowerBound(sortedX, chainMinX);
+            for (int k = from; k < segmentCount && sortedX[k] <= chainMaxX; k++) {
+                int p = pointOrder[k];
+                int pointRing = points[p * 2], pointIndex = points[p * 2 + 1];
+                if (pointRing == ringOf[i] && (pointIndex == start || pointIndex == end)) continue;
+
+                double x = rings[pointRing][pointIndex * 2], z = rings[pointRing][pointIndex * 2 + 1];
+                if (z < chainMinZ || z > chainMaxZ) continue;
+                if (chainContains(ring, start, end, x, z)) {
+                    violating[i] = true;
+                    break;
+                }
+            }
+        }
+
+        // 3. keep the furthest removed point of each violating segment
+        boolean changed = false;
+        for (int i = 0; i < segmentCount; i++) {
+            if (!violating[i]) continue;
+
+            double[] ring = rings[ringOf[i]];
+            int count = ring.length / 2;
+            int start = startOf[i], end = endOf[i];
+
+            int furthest = -1;
+            double furthestDistance = -1;
+            for (int p = (start + 1) % count; p != end; p = (p + 1) % count) {
+                double distance = segmentDistanceSquared(ring, 2, p, start, end);
+                if (distance > furthestDistance) {
+                    furthest = p;
+                    furthestDistance = distance;
+                }
+            }
+
+            // segments of the original rings can not be fixed
+            if (furthest == -1) continue;
+
+            keep[ringOf[i]][furthest] = true;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Tests if the point is within the polygon formed by the points from start to end of the ring (wrapping around),
+     * closed by the segment from end back to start.
+     */
+    private static boolean chainContains(double[] ring, int start, int end, double x, double z) {
+        int count = ring.length / 2;
+        boolean inside = false;
+        int a = end;
+        for (int b = start; ; b = (b + 1) % count) {
+            double ax = ring[a * 2], az = ring[a * 2 + 1];
+            double bx = ring[b * 2], bz = ring[b * 2 + 1];
+            if ((az > z) != (bz > z) && x < (bx - ax) * (z - az) / (bz - az) + ax) inside = !inside;
+            if (b == end) break;
+            a = b;
+        }
+        return inside;
+    }
+
+    /**
+     * Tests if the segments a-b and c-d intersect or touch.
+     */
+    private static boolean segmentsIntersect(
+            double ax, double az, double bx, double bz,
+            double cx, double cz, double dx, double dz
+    ) {
+        if (Math.max(ax, bx) < Math.min(cx, dx) || Math.max(cx, dx) < Math.min(ax, bx)) return false;
+        if (Math.max(az, bz) < Math.min(cz, dz) || Math.max(cz, dz) < Math.min(az, bz)) return false;
+
+        double d1 = cross(cx, cz, dx, dz, ax, az), d2 = cross(cx, cz, dx, dz, bx, bz);
+        double d3 = cross(ax, az, bx, bz, cx, cz), d4 = cross(ax, az, bx, bz, dx, dz);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) return true;
+
+        // touching or collinear overlapping, the bounding-boxes are already known to overlap
+        return
+                (d1 == 0 && within(ax, az, cx, cz, dx, dz)) ||
+                (d2 == 0 && within(bx, bz, cx, cz, dx, dz)) ||
+                (d3 == 0 && within(cx, cz, ax, az, bx, bz)) ||
+                (d4 == 0 && within(dx, dz, ax, az, bx, bz));
+    }
+
+    private static double cross(double ax, double az, double bx, double bz, double px, double pz) {
+        return (bx - ax) * (pz - az) - (bz - az) * (px - ax);
+    }
+
+    private static boolean within(double px, double pz, double ax, double az, double bx, double bz) {
+        return
+                px >= Math.min(ax, bx) && px <= Math.max(ax, bx) &&
+                pz >= Math.min(az, bz) && pz <= Math.max(az, bz);
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static double[] collect(double[] coordinates, int dimensions, boolean[] keep) {
+        int kept = countKept(keep);
+        if (kept == keep.length) return coordinates;
+
+        double[] simplified = new double[kept * dimensions];
+        int j = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (!keep[i]) continue;
+            System.arraycopy(coordinates, i * dimensions, simplified, j, dimensions);
+            j += dimensions;
+        }
+        return simplified;
+    }
+
+    private static void checkTolerance(double tolerance) {
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("tolerance must be a positive number");
+    }
+
+    /**
+     * Marks all points between first and last (exclusive) that need to be kept.
+     * The last index may be equal to the point-count to refer to the first point again (closing a ring).
+     */
+    private static void douglasPeucker(
+            double[] coordinates, int dimensions, int first, int last, double toleranceSquared, boolean[] keep
+    ) {
+        // iterative instead of recursive, so long lines with many points can not overflow the stack
+        int[] stack = new int[32];
+        int size = 0;
+        stack[size++] = first;
+        stack[size++] = last;
+
+        while (size > 0) {
+            int end = stack[--size];
+            int start = stack[--size];
+
+            int furthest = -1;
+            double furthestDistance = toleranceSquared;
+            for (int i = start + 1; i < end; i++) {
+                double distance = segmentDistanceSquared(coordinates, dimensions, i, start, end % keep.length);
+                if (distance > furthestDistance) {
+                    furthest = i;
+                    furthestDistance = distance;
+                }
+            }
+            if (furthest == -1) continue;
+
+            keep[furthest] = true;
+            if (size + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[size++] = start;
+            stack[size++] = furthest;
+            stack[size++] = furthest;
+            stack[size++] = end;
+        }
+    }
+
+    private static int countKept(boolean[] keep) {
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        return kept;
+    }
+
+    private static double distanceSquared(double[] coordinates, int dimensions, int a, int b) {
+        double distance = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double delta = coordinates[b * dimensions + d] - coordinates[a * dimensions + d];
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+    /**
+     * The squared distance of the point p to the line-segment from point a to point b.
+     */
+    private static double segmentDistanceSquared(double[] coordinates, int dimensions, int p, int a, int b) {
+        int pi = p * dimensions, ai = a * dimensions, bi = b * dimensions;
+
+        double along = 0, lengthSquared = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double segment = coordinates[bi + d] - coordinates[ai + d];
+            along += segment * (coordinates[pi + d] - coordinates[ai + d]);
+            lengthSquared += segment * segment;
+        }
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, along / lengthSquared));
+
+        double distance = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double closest = coordinates[ai + d] + t * (coordinates[bi + d] - coordinates[ai + d]);
+            double delta = coordinates[pi + d] - closest;
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+}
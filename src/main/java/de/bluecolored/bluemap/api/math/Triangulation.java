@@ -0,0 +1,751 @@
+/*
+ * This file is part of BlueMap, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Blue (Lukas Rieger) <https://bluecolored.de>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.bluecolored.bluemap.api.math;
+
+/*
+ * The triangulation in this file is a port of earcut (https://github.com/mapbox/earcut),
+ * licensed under the ISC License:
+ *
+ * Copyright (c) 2016, Mapbox
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND ISC DISCLAIMS ALL WARRANTIES WITH REGARD TO
+ * THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS.
+ * IN NO EVENT SHALL ISC BE LIABLE FOR ANY SPECIAL, DIRECT, INDIRECT, OR
+ * CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS OF USE, DATA
+ * OR PROFITS, WHETHER IN AN ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION,
+ * ARISING OUT OF OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Triangulates {@link Shape}s (optionally with holes) using ear-clipping.
+ * <p>This is a port of <a href="https://github.com/mapbox/earcut">earcut</a> (Copyright (c) 2016, Mapbox, ISC License): holes are
+ * connected to the outer shape with bridges, and for larger shapes a z-order curve is used to speed up the ear-tests.
+ * </p>
+ * <p>The resulting triangles are returned as an array of point-indices, three per triangle. The indices refer to the
+ * points of the shape first, followed by the points of each hole in order. So the index <code>shape.getPointCount()
+ * </code> is the first point of the first hole.</p>
+ */
+public final class Triangulation {
+
+    /**
+     * Shapes with more points than this use a z-order curve to speed up the ear-tests
+     */
+    private static final int HASH_THRESHOLD = 80;
+
+    private Triangulation() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Triangulates the given {@link Shape}.
+     * @param shape the shape to triangulate
+     * @return the point-indices of the triangles, three per triangle
+     */
+    public static int[] triangulate(Shape shape) {
+        return triangulate(shape, Collections.emptyList());
+    }
+
+    /**
+     * Triangulates the given {@link Shape} with the given holes.
+     * @param shape the shape to triangulate
+     * @param holes the holes in the shape
+     * @return the point-indices of the triangles, three per triangle, where the indices of the points of the holes
+     * follow the indices of the points of the shape
+     */
+    public static int[] triangulate(Shape shape, Collection<Shape> holes) {
+        Shape[] holeArray = holes.toArray(Shape[]::new);
+
+        int pointCount = shape.getPointCount();
+        for (Shape hole : holeArray) pointCount += hole.getPointCount();
+
+        double[] coordinates = new double[pointCount * 2];
+        int[] holeStarts = new int[holeArray.length];
+        shape.getCoordinates().get(coordinates, 0, shape.getPointCount() * 2);
+        int offset = shape.getPointCount();
+        for (int h = 0; h < holeArray.length; h++) {
+            holeStarts[h] = offset;
+            holeArray[h].getCoordinates().get(coordinates, offset * 2, holeArray[h].getPointCount() * 2);
+            offset += holeArray[h].getPointCount();
+        }
+
+        return new Triangulation.Earcut(coordinates).triangulate(shape.getPointCount(), holeStarts);
+    }
+
+    private static class Earcut {
+
+        private final double[] coordinates;
+        private int[] triangles;
+        private int size;
+
+        private double minX, minY, invSize;
+
+        private Earcut(double[] coordinates) {
+            this.coordinates = coordinates;
+            this.triangles = new int[Math.max(3, (coordinates.length / 2 - 2) * 3)];
+        }
+
+        private int[] triangulate(int outerCount, int[] holeStarts) {
+            Node outerNode = linkedList(0, outerCount, true);
+            if (outerNode == null || outerNode.next == outerNode.prev) return new int[0];
+
+            if (holeStarts.length > 0) outerNode = eliminateHoles(holeStarts, outerNode);
+
+            // for larger shapes use a z-order curve hash, so calculate the bounding box
+            if (coordinates.length / 2 > HASH_THRESHOLD) {
+                double maxX, maxY;
+                minX = maxX = coordinates[0];
+                minY = maxY = coordinates[1];
+                for (int i = 1; i < outerCount; i++) {
+                    double x = coordinates[i * 2], y = coordinates[i * 2 + 1];
+                    if (x < minX) minX = x;
+                    if (y < minY) minY = y;
+                    if (x > maxX) maxX = x;
+                    if (y > maxY) maxY = y;
+                }
+                invSize = Math.max(maxX - minX, maxY - minY);
+                invSize = invSize != 0 ? 32767 / invSize : 0;
+            }
+
+            earcutLinked(outerNode, 0);
+            return Arrays.copyOf(triangles, size);
+        }
+
+        private void addTriangle(Node a, Node b, Node c) {
+            if (size + 3 > triangles.length) triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            triangles[size++] = a.i;
+            triangles[size++] = b.i;
+            triangles[size++] = c.i;
+        }
+
+        /**
+         * Creates a circular doubly linked list from the points from start (inclusive) to end (exclusive)
+         * in the specified winding order.
+         */
+        @Nullable
+        private Node linkedList(int start, int end, boolean clockwise) {
+            Node last = null;
+            if (clockwise == (signedArea(start, end) > 0)) {
+                for (int i = start; i < end; i++) last = insertNode(i, last);
+            } else {
+                for (int i = end - 1; i >= start; i--) last = insertNode(i, last);
+            }
+
+            if (last != null && equals(last, last.next)) {
+                removeNode(last);
+                last = last.next;
+            }
+
+            return last;
+        }
+
+        /**
+         * Eliminates colinear or duplicate points.
+         */
+        @Nullable
+        private Node filterPoints(@Nullable Node start, @Nullable Node end) {
+            if (start == null) return null;
+            if (end == null) end = start;
+
+            Node p = start;
+            boolean again;
+            do {
+                again = false;
+
+                if (!p.steiner && (equals(p, p.next) || area(p.prev, p, p.next) == 0)) {
+                    removeNode(p);
+                    p = end = p.prev;
+                    if (p == p.next) break;
+                    again = true;
+                } else {
+                    p = p.next;
+                }
+            } while (again || p != end);
+
+            return end;
+        }
+
+        /**
+         * The main ear-slicing loop which triangulates a polygon (given as a linked list).
+         */
+        private void earcutLinked(@Nullable Node ear, int pass) {
+            if (ear == null) return;
+
+            // interlink polygon nodes in z-order
+            if (pass == 0 && invSize != 0) indexCurve(ear);
+
+            Node stop = ear;
+
+            // iterate through ears, slicing them one by one
+            while (ear.prev != ear.next) {
+                Node prev = ear.prev;
+                Node next = ear.next;
+
+                if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+                    addTriangle(prev, ear, next);
+                    removeNode(ear);
+
+                    // skipping the next vertex leads to less sliver triangles
+                    ear = next.next;
+                    stop = next.next;
+                    continue;
+                }
+
+                ear = next;
+
+                // if we looped through the whole remaining polygon and can't find any more ears
+                if (ear == stop) {
+                    if (pass == 0) {
+                        // try filtering points and slicing again
+                        earcutLinked(filterPoints(ear, null), 1);
+                    } else if (pass == 1) {
+                        // if this didn't work, try curing all small self-intersections locally
+                        ear = cureLocalIntersections(filterPoints(ear, null));
+                        earcutLinked(ear, 2);
+                    } else if (pass == 2) {
+                        // as a last resort, try splitting the remaining polygon into two
+                        splitEarcut(ear);
+                    }
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Checks whether a polygon node forms a valid ear with adjacent nodes.
+         */
+        private boolean isEar(Node ear) {
+            Node a = ear.prev, b = ear, c = ear.next;
+            if (area(a, b, c) >= 0) return false; // reflex, can't be an ear
+
+            double x0 = Math.min(a.x, Math.min(b.x, c.x)), y0 = Math.min(a.y, Math.min(b.y, c.y));
+            double x1 = Math.max(a.x, Math.max(b.x, c.x)), y1 = Math.max(a.y, Math.max(b.y, c.y));
+
+            // now make sure we don't have other points inside the potential ear
+            Node p = c.next;
+            while (p != a) {
+                if (isBlocking(p, a, b, c, x0, y0, x1, y1)) return false;
+                p = p.next;
+            }
+
+            return true;
+        }
+
+        private boolean isEarHashed(Node ear) {
+            Node a = ear.prev, b = ear, c = ear.next;
+            if (area(a, b, c) >= 0) return false; // reflex, can't be an ear
+
+            double x0 = Math.min(a.x, Math.min(b.x, c.x)), y0 = Math.min(a.y, Math.min(b.y, c.y));
+            double x1 = Math.max(a.x, Math.max(b.x, c.x)), y1 = Math.max(a.y, Math.max(b.y, c.y));
+
+            // z-order range for the current triangle bbox
+            int minZ = zOrder(x0, y0), maxZ = zOrder(x1, y1);
+
+            Node p = ear.prevZ, n = ear.nextZ;
+
+            // look for points inside the triangle in both directions
+            while (p != null && p.z >= minZ && n != null && n.z <= maxZ) {
+                if (p != a && p != c && isBlocking(p, a, b, c, x0, y0, x1, y1)) return false;
+                p = p.prevZ;
+
+                if (n != a && n != c && isBlocking(n, a, b, c, x0, y0, x1, y1)) return false;
+                n = n.nextZ;
+            }
+
+            // look for remaining points in decreasing z-order
+            while (p != null && p.z >= minZ) {
+                if (p != a && p != c && isBlocking(p, a, b, c, x0, y0, x1, y1)) return false;
+                p = p.prevZ;
+            }
+
+            // look for remaining points in increasing z-order
+            while (n != null && n.z <= maxZ) {
+                if (n != a && n != c && isBlocking(n, a, b, c, x0, y0, x1, y1)) return false;
+                n = n.nextZ;
+            }
+
+            return true;
+        }
+
+        private boolean isBlocking(Node p, Node a, Node b, Node c, double x0, double y0, double x1, double y1) {
+            return p.x >= x0 && p.x <= x1 && p.y >= y0 && p.y <= y1 &&
+                    pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) &&
+                    area(p.prev, p, p.next) >= 0;
+        }
+
+        /**
+         * Goes through all polygon nodes and cures small local self-intersections.
+         */
+        @Nullable
+        private Node cureLocalIntersections(@Nullable Node start) {
+            if (start == null) return null;
+
+            Node p = start;
+            do {
+                Node a = p.prev, b = p.next.next;
+
+                if (!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a)) {
+                    addTriangle(a, p, b);
+
+                    // remove two nodes involved
+                    removeNode(p);
+                    removeNode(p.next);
+
+                    p = start = b;
+                }
+                p = p.next;
+            } while (p != start);
+
+            return filterPoints(p, null);
+        }
+
+        /**
+         * Tries splitting the polygon into two and triangulate them independently.
+         */
+        private void splitEarcut(@Nullable Node start) {
+            if (start == null) return;
+
+            // look for a valid diagonal that divides the polygon into two
+            Node a = start;
+            do {
+                Node b = a.next.next;
+                while (b != a.prev) {
+                    if (a.i != b.i && isValidDiagonal(a, b)) {
+                        // split the polygon in two by the diagonal
+                        Node c = splitPolygon(a, b);
+
+                        // filter colinear points around the cuts
+                        a = filterPoints(a, a.next);
+                        c = filterPoints(c, c.next);
+
+                        // run earcut on each half
+                        earcutLinked(a, 0);
+                        earcutLinked(c, 0);
+                        return;
+                    }
+                    b = b.next;
+                }
+                a = a.next;
+            } while (a != start);
+        }
+
+        /**
+         * Links every hole into the outer loop, producing a single-ring polygon without holes.
+         */
+        private Node eliminateHoles(int[] holeStarts, Node outerNode) {
+            List<Node> queue = new ArrayList<>(holeStarts.length);
+
+            for (int h = 0; h < holeStarts.length; h++) {
+                int start = holeStarts[h];
+                int end = h < holeStarts.length - 1 ? holeStarts[h + 1] : coordinates.length / 2;
+                Node list = linkedList(start, end, false);
+                if (list == null) continue;
+                if (list == list.next) list.steiner = true;
+                queue.add(getLeftmost(list));
+            }
+
+            queue.sort((a, b) -> Double.compare(a.x, b.x));
+
+            // process holes from left to right
+            for (Node hole : queue) {
+                outerNode = eliminateHole(hole, outerNode);
+            }
+
+            return outerNode;
+        }
+
+        /**
+         * Finds a bridge between vertices that connects the hole with the outer ring and links it.
+         */
+        private Node eliminateHole(Node hole, Node outerNode) {
+            Node bridge = findHoleBridge(hole, outerNode);
+            if (bridge == null) return outerNode;
+
+            Node bridgeReverse = splitPolygon(bridge, hole);
+
+            // filter colinear points around the cuts
+            filterPoints(bridgeReverse, bridgeReverse.next);
+            Node filtered = filterPoints(bridge, bridge.next);
+            return filtered != null ? filtered : outerNode;
+        }
+
+        /**
+         * David Eberly's algorithm for finding a bridge between the hole and the outer polygon.
+         */
+        @Nullable
+        private Node findHoleBridge(Node hole, Node outerNode) {
+            Node p = outerNode;
+            double hx = hole.x, hy = hole.y;
+            double qx = Double.NEGATIVE_INFINITY;
+            Node m = null;
+
+            // find a segment intersected by a ray from the hole's leftmost point to the left;
+            // segment's endpoint with lesser x will be a potential connection point
+            do {
+                if (hy <= p.y && hy >= p.next.y && p.next.y != p.y) {
+                    double x = p.x + (hy - p.y) * (p.next.x - p.x) / (p.next.y - p.y);
+                    if (x <= hx && x > qx) {
+                        qx = x;
+                        m = p.x < p.next.x ? p : p.next;
+                        if (x == hx) return m; // hole touches outer segment; pick leftmost endpoint
+                    }
+                }
+                p = p.next;
+            } while (p != outerNode);
+
+            if (m == null) return null;
+
+            // look for points inside the triangle of hole point, segment intersection and endpoint;
+            // if there are no points found, we have a valid connection;
+            // otherwise choose the point of the minimum angle with the ray as connection point
+            Node stop = m;
+            double mx = m.x, my = m.y;
+            double tanMin = Double.POSITIVE_INFINITY;
+
+            p = m;
+            do {
+                if (hx >= p.x && p.x >= mx && hx != p.x &&
+                        pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y)) {
+
+                    double tan = Math.abs(hy - p.y) / (hx - p.x); // tangential
+
+                    if (locallyInside(p, hole) && (tan < tanMin || (tan == tanMin &&
+                            (p.x > m.x || (p.x == m.x && sectorContainsSector(m, p)))))) {
+                        m = p;
+                        tanMin = tan;
+                    }
+                }
+
+                p = p.next;
+            } while (p != stop);
+
+            return m;
+        }
+
+        /**
+         * Whether sector in vertex m contains sector in vertex p in the same coordinates.
+         */
+        private static boolean sectorContainsSector(Node m, Node p) {
+            return area(m.prev, m, p.prev) < 0 && area(p.next, m, m.next) < 0;
+        }
+
+        /**
+         * Interlinks polygon nodes in z-order.
+         */
+        private void indexCurve(Node start) {
+            Node p = start;
+            do {
+                if (p.z == 0) p.z = zOrder(p.x, p.y);
+                p.prevZ = p.prev;
+                p.nextZ = p.next;
+                p = p.next;
+            } while (p != start);
+
+            p.prevZ.nextZ = null;
+            p.prevZ = null;
+
+            sortLinked(p);
+        }
+
+        /**
+         * Simon Tatham's linked list merge sort algorithm.
+         */
+        private static void sortLinked(Node list) {
+            int inSize = 1;
+            int numMerges;
+
+            do {
+                Node p = list;
+                list = null;
+                Node tail = null;
+                numMerges = 0;
+
+                while (p != null) {
+                    numMerges++;
+                    Node q = p;
+                    int pSize = 0;
+                    for (int i = 0; i < inSize; i++) {
+                        pSize++;
+                        q = q.nextZ;
+                        if (q == null) break;
+                    }
+                    int qSize = inSize;
+
+                    while (pSize > 0 || (qSize > 0 && q != null)) {
+                        Node e;
+                        if (pSize != 0 && (qSize == 0 || q == null || p.z <= q.z)) {
+                            e = p;
+                            p = p.nextZ;
+                            pSize--;
+                        } else {
+                            e = q;
+                            q = q.nextZ;
+                            qSize--;
+                        }
+
+                        if (tail != null) tail.nextZ = e;
+                        else list = e;
+
+                        e.prevZ = tail;
+                        tail = e;
+                    }
+
+                    p = q;
+                }
+
+                tail.nextZ = null;
+                inSize *= 2;
+
+            } while (numMerges > 1);
+        }
+
+        /**
+         * The z-order of a point given coords and inverse of the longer side of data bbox.
+         */
+        private int zOrder(double px, double py) {
+            // coords are transformed into non-negative 15-bit integer range
+            int x = (int) ((px - minX) * invSize);
+            int y = (int) ((py - minY) * invSize);
+
+            x = (x | (x << 8)) & 0x00FF00FF;
+            x = (x | (x << 4)) & 0x0F0F0F0F;
+            x = (x | (x << 2)) & 0x33333333;
+            x = (x | (x << 1)) & 0x55555555;
+
+            y = (y | (y << 8)) & 0x00FF00FF;
+            y = (y | (y << 4)) & 0x0F0F0F0F;
+            y = (y | (y << 2)) & 0x33333333;
+            y = (y | (y << 1)) & 0x55555555;
+
+            return x | (y << 1);
+        }
+
+        /**
+         * Finds the leftmost node of a polygon ring.
+         */
+        private static Node getLeftmost(Node start) {
+            Node p = start, leftmost = start;
+            do {
+                if (p.x < leftmost.x || (p.x == leftmost.x && p.y < leftmost.y)) leftmost = p;
+                p = p.next;
+            } while (p != start);
+            return leftmost;
+        }
+
+        /**
+         * Checks whether a point lies within a triangle.
+         */
+        private static boolean pointInTriangle(
+                double ax, double ay, double bx, double by, double cx, double cy, double px, double py
+        ) {
+            return (cx - px) * (ay - py) >= (ax - px) * (cy - py) &&
+                    (ax - px) * (by - py) >= (bx - px) * (ay - py) &&
+                    (bx - px) * (cy - py) >= (cx - px) * (by - py);
+        }
+
+        /**
+         * Checks whether a diagonal between two polygon nodes is valid (lies in polygon interior).
+         */
+        private static boolean isValidDiagonal(Node a, Node b) {
+            return a.next.i != b.i && a.prev.i != b.i && !intersectsPolygon(a, b) && // doesn't intersect other edges
+                    (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b) && // locally visible
+                            (area(a.prev, a, b.prev) != 0 || area(a, b.prev, b) != 0) || // does not create opposite-facing sectors
+                            equals(a, b) && area(a.prev, a, a.next) > 0 && area(b.prev, b, b.next) > 0); // special zero-length case
+        }
+
+        /**
+         * The signed area of a triangle.
+         */
+        private static double area(Node p, Node q, Node r) {
+            return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+        }
+
+        private static boolean equals(Node p1, Node p2) {
+            return p1.x == p2.x && p1.y == p2.y;
+        }
+
+        /**
+         * Checks whether two segments intersect.
+         */
+        private static boolean intersects(Node p1, Node q1, Node p2, Node q2) {
+            int o1 = sign(area(p1, q1, p2));
+            int o2 = sign(area(p1, q1, q2));
+            int o3 = sign(area(p2, q2, p1));
+            int o4 = sign(area(p2, q2, q1));
+
+            if (o1 != o2 && o3 != o4) return true; // general case
+
+            if (o1 == 0 && onSegment(p1, p2, q1)) return true; // p1, q1 and p2 are collinear and p2 lies on p1q1
+            if (o2 == 0 && onSegment(p1, q2, q1)) return true; // p1, q1 and q2 are collinear and q2 lies on p1q1
+            if (o3 == 0 && onSegment(p2, p1, q2)) return true; // p2, q2 and p1 are collinear and p1 lies on p2q2
+            return o4 == 0 && onSegment(p2, q1, q2); // p2, q2 and q1 are collinear and q1 lies on p2q2
+        }
+
+        /**
+         * For collinear points p, q, r, checks if point q lies on segment pr.
+         */
+        private static boolean onSegment(Node p, Node q, Node r) {
+            return q.x <= Math.max(p.x, r.x) && q.x >= Math.min(p.x, r.x) &&
+                    q.y <= Math.max(p.y, r.y) && q.y >= Math.min(p.y, r.y);
+        }
+
+        private static int sign(double num) {
+            return num > 0 ? 1 : num < 0 ? -1 : 0;
+        }
+
+        /**
+         * Checks if a polygon diagonal intersects any polygon segments.
+         */
+        private static boolean intersectsPolygon(Node a, Node b) {
+            Node p = a;
+            do {
+                if (p.i != a.i && p.next.i != a.i && p.i != b.i && p.next.i != b.i &&
+                        intersects(p, p.next, a, b)) return true;
+                p = p.next;
+            } while (p != a);
+
+            return false;
+        }
+
+        /**
+         * Checks if a polygon diagonal is locally inside the polygon.
+         */
+        private static boolean locallyInside(Node a, Node b) {
+            return area(a.prev, a, a.next) < 0 ?
+                    area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0 :
+                    area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
+        }
+
+        /**
+         * Checks if the middle point of a polygon diagonal is inside the polygon.
+         */
+        private static boolean middleInside(Node a, Node b) {
+            Node p = a;
+            boolean inside = false;
+            double px = (a.x + b.x) / 2, py = (a.y + b.y) / 2;
+            do {
+                if (((p.y > py) != (p.next.y > py)) && p.next.y != p.y &&
+                        (px < (p.next.x - p.x) * (py - p.y) / (p.next.y - p.y) + p.x))
+                    inside = !inside;
+                p = p.next;
+            } while (p != a);
+
+            return inside;
+        }
+
+        /**
+         * Links two polygon vertices with a bridge; if the vertices belong to the same ring, it splits the polygon
+         * into two; if one belongs to the outer ring and another to a hole, it merges it into a single ring.
+         */
+        private static Node splitPolygon(Node a, Node b) {
+            Node a2 = new Node(a.i, a.x, a.y);
+            Node b2 = new Node(b.i, b.x, b.y);
+            Node an = a.next;
+            Node bp = b.prev;
+
+            a.next = b;
+            b.prev = a;
+
+            a2.next = an;
+            an.prev = a2;
+
+            b2.next = a2;
+            a2.prev = b2;
+
+            bp.next = b2;
+            b2.prev = bp;
+
+            return b2;
+        }
+
+        /**
+         * Creates a node and optionally links it with the previous one (in a circular doubly linked list).
+         */
+        private Node insertNode(int i, @Nullable Node last) {
+            Node p = new Node(i, coordinates[i * 2], coordinates[i * 2 + 1]);
+
+            if (last == null) {
+                p.prev = p;
+                p.next = p;
+            } else {
+                p.next = last.next;
+                p.prev = last;
+                last.next.prev = p;
+                last.next = p;
+            }
+            return p;
+        }
+
+        private static void removeNode(Node p) {
+            p.next.prev = p.prev;
+            p.prev.next = p.next;
+
+            if (p.prevZ != null) p.prevZ.nextZ = p.nextZ;
+            if (p.nextZ != null) p.nextZ.prevZ = p.prevZ;
+        }
+
+        private double signedArea(int start, int end) {
+            double sum = 0;
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                sum += (coordinates[j * 2] - coordinates[i * 2]) * (coordinates[i * 2 + 1] + coordinates[j * 2 + 1]);
+            }
+            return sum;
+        }
+
+    }
+
+    private static class Node {
+
+        private final int i; // point-index
+        private final double x, y;
+
+        private Node prev, next;
+
+        private int z; // z-order curve value
+        @Nullable
+        private Node prevZ, nextZ;
+
+        private boolean steiner;
+
+        private Node(int i, double x, double y) {
+            this.i = i;
+            this.x = x;
+            this.y = y;
+        }
+
+    }
+
+}